@@ -0,0 +1,101 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import db.ConnectionPool;
+import db.SchemaMigrator;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.DepartmentDaoMemory;
+import model.dao.impl.MemoryStore;
+import model.dao.impl.SellerDaoJDBC;
+import model.dao.impl.SellerDaoMemory;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Creates the seller and department tables in an embedded database and
+ * fills them with deterministic random data. The URL defaults to an
+ * in-memory H2 database, so the H2 jar must be on the classpath; nothing is
+ * fetched over the network.
+ */
+public class BenchDatabase {
+
+	public static final String DEFAULT_URL = "jdbc:h2:mem:bench;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+
+	private final ConnectionPool pool;
+
+	public BenchDatabase(String url) {
+		Properties props = new Properties();
+		props.setProperty("dburl", url);
+		props.setProperty("pool.minSize", "1");
+		props.setProperty("pool.maxSize", "4");
+		pool = new ConnectionPool(props);
+	}
+
+	public ConnectionPool getPool() {
+		return pool;
+	}
+
+	public void seed(int departments, int sellers, long seed) throws SQLException {
+		Connection conn = pool.getConnection();
+		try (Statement st = conn.createStatement()) {
+			st.execute("DROP TABLE IF EXISTS seller");
+			st.execute("DROP TABLE IF EXISTS department");
+			st.execute("DROP TABLE IF EXISTS schema_version");
+			SchemaMigrator.migrate(conn, "h2");
+		} finally {
+			pool.releaseConnection(conn);
+		}
+
+		fill(new DepartmentDaoJDBC(pool, 500), new SellerDaoJDBC(pool, 500), departments, sellers, seed);
+	}
+
+	/* the same data seed() writes to the database, for the in-memory DAOs */
+	public static MemoryStore seedMemory(int departments, int sellers, long seed) {
+		MemoryStore store = new MemoryStore();
+		fill(new DepartmentDaoMemory(store), new SellerDaoMemory(store), departments, sellers, seed);
+		return store;
+	}
+
+	private static void fill(DepartmentDao departmentDao, SellerDao sellerDao, int departments, int sellers,
+			long seed) {
+		List<Department> deps = new ArrayList<>();
+		for (int i = 1; i <= departments; i++) {
+			deps.add(new Department(null, "Department " + i));
+		}
+		departmentDao.insertAll(deps);
+
+		Random random = new Random(seed);
+		List<Seller> chunk = new ArrayList<>();
+		for (int i = 0; i < sellers; i++) {
+			chunk.add(randomSeller(random, deps));
+			if (chunk.size() == 5000) {
+				sellerDao.insertAll(chunk);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			sellerDao.insertAll(chunk);
+		}
+	}
+
+	public static Seller randomSeller(Random random, List<Department> deps) {
+		String name = "Seller " + Integer.toString(random.nextInt(1 << 24), 36);
+		LocalDate birth = LocalDate.of(1955, 1, 1).plusDays(random.nextInt(18000));
+		return new Seller(null, name, name.replace(' ', '.').toLowerCase() + "@example.com",
+				java.sql.Date.valueOf(birth), 1000.0 + random.nextInt(9000), deps.get(random.nextInt(deps.size())));
+	}
+
+	public void close() {
+		pool.close();
+	}
+}
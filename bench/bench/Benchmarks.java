@@ -0,0 +1,307 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import bench.analytics.SalaryKernels;
+import bench.analytics.SellerSnapshot;
+import bench.analytics.SnapshotOperators;
+import db.ConnectionPool;
+import db.DB;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.dao.DepartmentDao;
+import model.dao.ReportDao;
+import model.dao.SellerDao;
+import model.dao.impl.DepartmentDaoCache;
+import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.DepartmentDaoMemory;
+import model.dao.impl.MemoryStore;
+import model.dao.impl.ReportDaoJDBC;
+import model.dao.impl.ReportDaoMemory;
+import model.dao.impl.SellerDaoJDBC;
+import model.dao.impl.SellerDaoMemory;
+import model.dao.impl.SellerDaoMetrics;
+import model.dao.impl.SellerRowMapper;
+import model.entities.Department;
+import model.entities.Seller;
+import model.services.SellerSearchIndex;
+
+/**
+ * Benchmarks for the DAO, row mapping and in-memory analytics code against
+ * a seeded embedded database.
+ *
+ * Run with the project classes and the H2 jar on the classpath:
+ *
+ *   java -cp bin:h2.jar bench.Benchmarks [--sellers=100000] [--departments=20]
+ *       [--warmup=3] [--iterations=5] [--time=1000] [--filter=regex]
+ *       [--rows=1000000] [--url=jdbc:...]
+ *
+ * bench.analytics uses the incubating Vector API, so compile with
+ * --add-modules jdk.incubator.vector; run with it too for the
+ * kernels.*.vector benchmarks.
+ *
+ * --time is the length of one iteration in milliseconds, --rows the size
+ * of the synthetic salary arrays used by the kernel benchmarks, and
+ * --filter selects benchmarks by name.
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parse(args);
+		int sellers = intOption(options, "sellers", 100_000);
+		int departments = intOption(options, "departments", 20);
+		int rows = intOption(options, "rows", 1_000_000);
+		Harness harness = new Harness(intOption(options, "warmup", 3), intOption(options, "iterations", 5),
+				intOption(options, "time", 1000), options.get("filter"));
+
+		BenchDatabase db = new BenchDatabase(options.getOrDefault("url", BenchDatabase.DEFAULT_URL));
+		try {
+			System.out.println("Seeding " + sellers + " sellers in " + departments + " departments...");
+			db.seed(departments, sellers, 42);
+			Harness.printHeader();
+			daoBenchmarks(harness, "", new SellerDaoJDBC(db.getPool(), 500),
+					new DepartmentDaoJDBC(db.getPool(), 500), new ReportDaoJDBC(db.getPool()), sellers);
+			MemoryStore store = BenchDatabase.seedMemory(departments, sellers, 42);
+			daoBenchmarks(harness, "memory.", new SellerDaoMemory(store), new DepartmentDaoMemory(store),
+					new ReportDaoMemory(store), sellers);
+			metricsBenchmarks(harness, new SellerDaoMemory(store), sellers);
+			mappingBenchmarks(harness, db.getPool());
+			analyticsBenchmarks(harness, db.getPool(), rows);
+		} finally {
+			db.close();
+		}
+	}
+
+	/*
+	 * Run once on the JDBC DAOs and once, with names prefixed "memory.", on
+	 * the in-memory DAOs holding the same data: the difference is the cost
+	 * of the database round trip and the row mapping.
+	 */
+	private static void daoBenchmarks(Harness h, String prefix, SellerDao sellerDao, DepartmentDao departmentDao,
+			ReportDao reportDao, int sellers) throws Exception {
+		DepartmentDao departmentCache = new DepartmentDaoCache(departmentDao, 300_000, 1000);
+		List<Department> deps = departmentDao.findAll();
+		Random random = new Random(7);
+
+		h.run(prefix + "seller.findAll", sellerDao::findAll);
+		h.run(prefix + "seller.findById", () -> sellerDao.findById(1 + random.nextInt(sellers)));
+		h.run(prefix + "seller.findByDepartment",
+				() -> sellerDao.findByDepartment(deps.get(random.nextInt(deps.size()))));
+		h.run(prefix + "seller.findPage", () -> sellerDao.findPage(random.nextInt(sellers), 200));
+		h.run(prefix + "seller.count", sellerDao::count);
+
+		// rows inserted here are the ones the delete benchmark removes
+		Deque<Seller> inserted = new ArrayDeque<>();
+		h.run(prefix + "seller.insert", () -> {
+			Seller obj = BenchDatabase.randomSeller(random, deps);
+			sellerDao.insert(obj);
+			inserted.push(obj);
+			return obj;
+		});
+		List<Seller> page = sellerDao.findPage(null, 1000);
+		h.run(prefix + "seller.update", () -> {
+			Seller obj = page.get(random.nextInt(page.size()));
+			obj.setBaseSalary(1000.0 + random.nextInt(9000));
+			sellerDao.update(obj);
+			return obj;
+		});
+		h.run(prefix + "seller.delete", () -> {
+			Seller obj = inserted.poll();
+			if (obj == null) {
+				// out of rows from the insert benchmark: the delete pays for an insert too
+				obj = BenchDatabase.randomSeller(random, deps);
+				sellerDao.insert(obj);
+			}
+			sellerDao.deleteBy(obj);
+			return obj;
+		});
+
+		h.run(prefix + "department.findAll", departmentDao::findAll);
+		h.run(prefix + "department.findById",
+				() -> departmentDao.findById(deps.get(random.nextInt(deps.size())).getId()));
+		h.run(prefix + "department.cached.findAll", departmentCache::findAll);
+		h.run(prefix + "department.cached.findById",
+				() -> departmentCache.findById(deps.get(random.nextInt(deps.size())).getId()));
+
+		LocalDate today = LocalDate.now();
+		List<LocalDate> cutoffs = List.of(today.minusYears(25), today.minusYears(35), today.minusYears(45),
+				today.minusYears(55));
+		h.run(prefix + "report.salaryStatsByDepartment", () -> reportDao.salaryStatsByDepartment(cutoffs));
+	}
+
+	/*
+	 * The cost of instrumentation: recording one latency (expected 0 B/op),
+	 * and an in-memory findById with and without the metrics decorator.
+	 */
+	private static void metricsBenchmarks(Harness h, SellerDao sellerDao, int sellers) throws Exception {
+		OperationMetrics metrics = MetricsRegistry.get("bench.record");
+		Random random = new Random(11);
+		h.run("metrics.record", () -> {
+			metrics.record(random.nextInt(1_000_000), true);
+			return metrics;
+		});
+		h.run("metrics.snapshot", MetricsRegistry::snapshot);
+		SellerDao instrumented = new SellerDaoMetrics(sellerDao);
+		h.run("metrics.findById.plain", () -> sellerDao.findById(1 + random.nextInt(sellers)));
+		h.run("metrics.findById.instrumented", () -> instrumented.findById(1 + random.nextInt(sellers)));
+	}
+
+	/*
+	 * The same 1000-row query read three ways: only stepping through the
+	 * rows, mapping by column index with one Department per id (the current
+	 * SellerRowMapper), and mapping by column label with a new Department
+	 * per row (how rows were mapped before). The difference to scan is the
+	 * mapping cost.
+	 */
+	private static void mappingBenchmarks(Harness h, ConnectionPool pool) throws Exception {
+		String sql = "SELECT " + SellerRowMapper.COLUMNS + SellerRowMapper.FROM + "ORDER BY seller.Id LIMIT 1000";
+		h.run("mapping.scan1000", () -> query(pool, sql, rs -> {
+			int n = 0;
+			while (rs.next()) {
+				n++;
+			}
+			return n;
+		}));
+		h.run("mapping.index1000", () -> query(pool, sql, rs -> {
+			List<Seller> list = new ArrayList<>();
+			SellerRowMapper mapper = new SellerRowMapper(rs);
+			while (rs.next()) {
+				list.add(mapper.map(rs));
+			}
+			return list;
+		}));
+		h.run("mapping.label1000", () -> query(pool, sql, rs -> {
+			List<Seller> list = new ArrayList<>();
+			while (rs.next()) {
+				Department dep = new Department(rs.getInt("DepartmentId"), rs.getString("DepName"));
+				Timestamp birth = rs.getTimestamp("BirthDate");
+				list.add(new Seller(rs.getInt("Id"), rs.getString("Name"), rs.getString("Email"),
+						birth == null ? null : new Date(birth.getTime()), rs.getDouble("BaseSalary"), dep));
+			}
+			return list;
+		}));
+	}
+
+	private static void analyticsBenchmarks(Harness h, ConnectionPool pool, int rows) throws Exception {
+		SellerDao sellerDao = new SellerDaoJDBC(pool, 500);
+		SellerSnapshot snapshot = SellerSnapshot.load(sellerDao, 1000);
+
+		h.run("snapshot.load", () -> SellerSnapshot.load(sellerDao, 1000));
+		h.run("snapshot.aggregate", () -> SnapshotOperators.aggregate(snapshot, null));
+		h.run("snapshot.groupByDepartment", () -> SnapshotOperators.groupByDepartment(snapshot, null));
+		LocalDate today = LocalDate.now();
+		List<LocalDate> cutoffs = List.of(today.minusYears(25), today.minusYears(35), today.minusYears(45),
+				today.minusYears(55));
+		h.run("snapshot.salaryStatsByDepartment", () -> SnapshotOperators.salaryStatsByDepartment(snapshot, cutoffs));
+		h.run("snapshot.filterSalary",
+				() -> SnapshotOperators.filter(snapshot, SnapshotOperators.salaryBetween(snapshot, 3000, 4000)));
+		h.run("snapshot.listGroupByDepartment", () -> {
+			List<Seller> list = sellerDao.findAll();
+			Map<Integer, double[]> groups = new HashMap<>();
+			for (Seller obj : list) {
+				double[] g = groups.computeIfAbsent(obj.getDepartment().getId(), k -> new double[2]);
+				g[0]++;
+				g[1] += obj.getBaseSalary();
+			}
+			return groups;
+		});
+
+		SellerSearchIndex index = new SellerSearchIndex();
+		h.run("searchIndex.build", () -> {
+			index.build(sellerDao, 1000);
+			return index;
+		});
+		Random random = new Random(11);
+		String[] queries = { "se", "sel", "ller 1", "example", "@ex", "zz", "r a" };
+		h.run("searchIndex.search", () -> index.search(queries[random.nextInt(queries.length)], 10));
+
+		Random values = new Random(3);
+		double[] salaries = new double[rows];
+		int[] departmentIds = new int[rows];
+		for (int i = 0; i < rows; i++) {
+			salaries[i] = 1000.0 + values.nextInt(9000);
+			departmentIds[i] = 1 + values.nextInt(20);
+		}
+		double[] out = new double[rows];
+		double[] factors = SalaryKernels.raiseFactors(departmentIds, Map.of(3, 5.0, 7, 2.5));
+
+		h.run("kernels.sum.naive", () -> {
+			double sum = 0.0;
+			for (int i = 0; i < salaries.length; i++) {
+				sum += salaries[i];
+			}
+			return sum;
+		});
+		h.run("kernels.sum", () -> SalaryKernels.sumScalar(salaries, 0, rows));
+		h.run("kernels.sum.parallel", () -> SnapshotOperators.sum(salaries));
+		h.run("kernels.minMax",
+				() -> SalaryKernels.minScalar(salaries, 0, rows) + SalaryKernels.maxScalar(salaries, 0, rows));
+		h.run("kernels.histogram", () -> SalaryKernels.histogramScalar(salaries, 0, rows, 1000, 10000, 18));
+		h.run("kernels.raise", () -> {
+			SalaryKernels.applyRaiseScalar(salaries, departmentIds, factors, out, 0, rows);
+			return out;
+		});
+
+		// the dispatching kernels only differ from the scalar ones with the vector module
+		if (!SalaryKernels.VECTORIZED) {
+			System.out.println("(kernels.*.vector skipped: run with --add-modules jdk.incubator.vector)");
+			return;
+		}
+		h.run("kernels.sum.vector", () -> SalaryKernels.sum(salaries, 0, rows));
+		h.run("kernels.minMax.vector",
+				() -> SalaryKernels.min(salaries, 0, rows) + SalaryKernels.max(salaries, 0, rows));
+		h.run("kernels.histogram.vector", () -> SalaryKernels.histogram(salaries, 0, rows, 1000, 10000, 18));
+		h.run("kernels.raise.vector", () -> {
+			SalaryKernels.applyRaise(salaries, departmentIds, factors, out, 0, rows);
+			return out;
+		});
+	}
+
+	private interface ResultSetReader {
+		Object read(ResultSet rs) throws Exception;
+	}
+
+	private static Object query(ConnectionPool pool, String sql, ResultSetReader reader) throws Exception {
+		Connection conn = pool.getConnection();
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement(sql);
+			rs = st.executeQuery();
+			return reader.read(rs);
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	private static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+			int eq = arg.indexOf('=');
+			options.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+		return options;
+	}
+
+	private static int intOption(Map<String, String> options, String name, int defaultValue) {
+		String value = options.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+}
@@ -0,0 +1,143 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal benchmark runner: warmup iterations, then measured iterations of
+ * a fixed duration. Every operation is timed on its own, which gives
+ * throughput and latency percentiles; allocation per operation comes from
+ * the per-thread allocation counter of the JVM (HotSpot only).
+ *
+ * Results of the operations go through {@link #consume(Object)} so the JIT
+ * cannot drop the work.
+ */
+public class Harness {
+
+	public interface Op {
+		Object run() throws Exception;
+	}
+
+	private static volatile int sink;
+
+	private final int warmupIterations;
+	private final int iterations;
+	private final long iterationNanos;
+	private final Pattern filter;
+	private final com.sun.management.ThreadMXBean threads;
+
+	public Harness(int warmupIterations, int iterations, long iterationMillis, String filter) {
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+		this.filter = filter == null ? null : Pattern.compile(filter);
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		this.threads = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean
+				: null;
+		if (threads != null && threads.isThreadAllocatedMemorySupported()) {
+			threads.setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+
+	public static void consume(Object value) {
+		if (value != null) {
+			sink ^= System.identityHashCode(value);
+		}
+	}
+
+	public static void printHeader() {
+		System.out.println(String.format(Locale.ROOT, "%-34s %12s %10s %10s %10s %10s %12s", "benchmark", "ops/s",
+				"p50 us", "p90 us", "p99 us", "max us", "B/op"));
+	}
+
+	public boolean selected(String name) {
+		return filter == null || filter.matcher(name).find();
+	}
+
+	public void run(String name, Op op) throws Exception {
+		if (!selected(name)) {
+			return;
+		}
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(op, null);
+		}
+		LatencyRecorder latencies = new LatencyRecorder();
+		long ops = 0;
+		long elapsed = 0;
+		long allocated = 0;
+		for (int i = 0; i < iterations; i++) {
+			long bytesBefore = allocatedBytes();
+			long start = System.nanoTime();
+			ops += iteration(op, latencies);
+			elapsed += System.nanoTime() - start;
+			allocated += allocatedBytes() - bytesBefore;
+		}
+		double throughput = ops * 1e9 / elapsed;
+		String bytesPerOp = threads == null ? "n/a" : String.format(Locale.ROOT, "%.0f", (double) allocated / ops);
+		System.out.println(String.format(Locale.ROOT, "%-34s %12.1f %10.1f %10.1f %10.1f %10.1f %12s", name,
+				throughput, latencies.percentile(0.50) / 1e3, latencies.percentile(0.90) / 1e3,
+				latencies.percentile(0.99) / 1e3, latencies.percentile(1.0) / 1e3, bytesPerOp));
+	}
+
+	private long iteration(Op op, LatencyRecorder latencies) throws Exception {
+		long end = System.nanoTime() + iterationNanos;
+		long ops = 0;
+		long now;
+		do {
+			long start = System.nanoTime();
+			consume(op.run());
+			now = System.nanoTime();
+			if (latencies != null) {
+				latencies.record(now - start);
+			}
+			ops++;
+		} while (now < end);
+		return ops;
+	}
+
+	private long allocatedBytes() {
+		return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/*
+	 * Fixed-size sample of latencies, allocated before measuring so it does
+	 * not show up in B/op. When it fills up every other sample is dropped and
+	 * only every stride-th operation is recorded from then on.
+	 */
+	private static class LatencyRecorder {
+		private final long[] values = new long[1 << 20];
+		private int size = 0;
+		private int stride = 1;
+		private long seen = 0;
+		private boolean sorted = false;
+
+		void record(long nanos) {
+			if (seen++ % stride != 0) {
+				return;
+			}
+			if (size == values.length) {
+				for (int i = 0; i < size / 2; i++) {
+					values[i] = values[i * 2];
+				}
+				size /= 2;
+				stride *= 2;
+			}
+			values[size++] = nanos;
+			sorted = false;
+		}
+
+		double percentile(double p) {
+			if (size == 0) {
+				return 0.0;
+			}
+			if (!sorted) {
+				Arrays.sort(values, 0, size);
+				sorted = true;
+			}
+			int index = (int) Math.ceil(p * size) - 1;
+			return values[Math.max(0, Math.min(size - 1, index))];
+		}
+	}
+}
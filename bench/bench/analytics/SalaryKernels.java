@@ -0,0 +1,156 @@
+package bench.analytics;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Tight loops over primitive salary columns: sum, min/max, histogram and
+ * per-department raises. They are written for the JIT's auto-vectorizer:
+ * counted int loops over arrays, no calls or object access in the body, and
+ * independent accumulators where a reduction would otherwise be one serial
+ * dependency chain (a double sum cannot be reordered by the compiler on its
+ * own).
+ *
+ * When the JVM runs with --add-modules jdk.incubator.vector, sum, min, max,
+ * histogram and applyRaise use {@link VectorSalaryKernels} instead; the
+ * ...Scalar methods are the fallback and stay callable for comparison.
+ *
+ * All ranges are [from, to).
+ */
+public class SalaryKernels {
+
+	public static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private SalaryKernels() {
+	}
+
+	public static double sum(double[] values, int from, int to) {
+		return VECTORIZED ? VectorSalaryKernels.sum(values, from, to) : sumScalar(values, from, to);
+	}
+
+	/* Double.POSITIVE_INFINITY for an empty range */
+	public static double min(double[] values, int from, int to) {
+		return VECTORIZED ? VectorSalaryKernels.min(values, from, to) : minScalar(values, from, to);
+	}
+
+	/* Double.NEGATIVE_INFINITY for an empty range */
+	public static double max(double[] values, int from, int to) {
+		return VECTORIZED ? VectorSalaryKernels.max(values, from, to) : maxScalar(values, from, to);
+	}
+
+	/*
+	 * Counts values into buckets of equal width over [low, high); values
+	 * outside the range land in the first or last bucket.
+	 */
+	public static long[] histogram(double[] values, int from, int to, double low, double high, int buckets) {
+		if (buckets <= 0 || !(high > low)) {
+			throw new IllegalArgumentException("Invalid histogram range or bucket count");
+		}
+		return VECTORIZED ? VectorSalaryKernels.histogram(values, from, to, low, high, buckets)
+				: histogramScalar(values, from, to, low, high, buckets);
+	}
+
+	/*
+	 * out[i] = salaries[i] * factors[departmentIds[i]], where factors is
+	 * indexed by department id (see raiseFactors). out may be salaries
+	 * itself.
+	 */
+	public static void applyRaise(double[] salaries, int[] departmentIds, double[] factors, double[] out, int from,
+			int to) {
+		if (VECTORIZED) {
+			VectorSalaryKernels.applyRaise(salaries, departmentIds, factors, out, from, to);
+		} else {
+			applyRaiseScalar(salaries, departmentIds, factors, out, from, to);
+		}
+	}
+
+	public static double sumScalar(double[] values, int from, int to) {
+		double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+		int i = from;
+		for (; i + 3 < to; i += 4) {
+			s0 += values[i];
+			s1 += values[i + 1];
+			s2 += values[i + 2];
+			s3 += values[i + 3];
+		}
+		for (; i < to; i++) {
+			s0 += values[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	/*
+	 * Plain comparisons instead of Math.min, whose NaN handling keeps C2 from
+	 * vectorizing the loop; salaries are never NaN.
+	 */
+	public static double minScalar(double[] values, int from, int to) {
+		double m0 = Double.POSITIVE_INFINITY, m1 = Double.POSITIVE_INFINITY;
+		int i = from;
+		for (; i + 1 < to; i += 2) {
+			m0 = values[i] < m0 ? values[i] : m0;
+			m1 = values[i + 1] < m1 ? values[i + 1] : m1;
+		}
+		for (; i < to; i++) {
+			m0 = values[i] < m0 ? values[i] : m0;
+		}
+		return Math.min(m0, m1);
+	}
+
+	public static double maxScalar(double[] values, int from, int to) {
+		double m0 = Double.NEGATIVE_INFINITY, m1 = Double.NEGATIVE_INFINITY;
+		int i = from;
+		for (; i + 1 < to; i += 2) {
+			m0 = values[i] > m0 ? values[i] : m0;
+			m1 = values[i + 1] > m1 ? values[i + 1] : m1;
+		}
+		for (; i < to; i++) {
+			m0 = values[i] > m0 ? values[i] : m0;
+		}
+		return Math.max(m0, m1);
+	}
+
+	/*
+	 * The bucket index is computed branch-free so that pass vectorizes; only
+	 * the increments are scattered.
+	 */
+	public static long[] histogramScalar(double[] values, int from, int to, double low, double high, int buckets) {
+		long[] counts = new long[buckets];
+		double scale = buckets / (high - low);
+		int last = buckets - 1;
+		int[] index = new int[Math.min(to - from, 4096)];
+		for (int start = from; start < to; start += index.length) {
+			int end = Math.min(to, start + index.length);
+			for (int i = start; i < end; i++) {
+				index[i - start] = Math.max(0, Math.min(last, (int) ((values[i] - low) * scale)));
+			}
+			for (int i = 0; i < end - start; i++) {
+				counts[index[i]]++;
+			}
+		}
+		return counts;
+	}
+
+	public static void applyRaiseScalar(double[] salaries, int[] departmentIds, double[] factors, double[] out,
+			int from, int to) {
+		for (int i = from; i < to; i++) {
+			out[i] = salaries[i] * factors[departmentIds[i]];
+		}
+	}
+
+	/* dense factor table for applyRaise: 1 + percent / 100 per department, 1 for the rest */
+	public static double[] raiseFactors(int[] departmentIds, Map<Integer, Double> percentByDepartment) {
+		int maxId = 0;
+		for (int id : departmentIds) {
+			maxId = Math.max(maxId, id);
+		}
+		for (Integer id : percentByDepartment.keySet()) {
+			maxId = Math.max(maxId, id);
+		}
+		double[] factors = new double[maxId + 1];
+		Arrays.fill(factors, 1.0);
+		for (Map.Entry<Integer, Double> e : percentByDepartment.entrySet()) {
+			factors[e.getKey()] = 1.0 + e.getValue() / 100.0;
+		}
+		return factors;
+	}
+}
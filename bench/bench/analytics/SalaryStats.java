@@ -0,0 +1,67 @@
+package bench.analytics;
+
+/**
+ * Count, sum, min and max of a set of salaries. Instances are mutable
+ * accumulators: fork/join tasks fill one each and {@link #combine} merges
+ * them.
+ */
+public class SalaryStats {
+
+	private long count = 0;
+	private double sum = 0.0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public void add(double salary) {
+		count++;
+		sum += salary;
+		if (salary < min) {
+			min = salary;
+		}
+		if (salary > max) {
+			max = salary;
+		}
+	}
+
+	/* adds a range summarized elsewhere, e.g. by SalaryKernels */
+	public void add(long count, double sum, double min, double max) {
+		this.count += count;
+		this.sum += sum;
+		this.min = Math.min(this.min, min);
+		this.max = Math.max(this.max, max);
+	}
+
+	public SalaryStats combine(SalaryStats other) {
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getSum() {
+		return sum;
+	}
+
+	public double getAverage() {
+		return count == 0 ? 0.0 : sum / count;
+	}
+
+	public double getMin() {
+		return count == 0 ? 0.0 : min;
+	}
+
+	public double getMax() {
+		return count == 0 ? 0.0 : max;
+	}
+
+	@Override
+	public String toString() {
+		return "SalaryStats [count=" + count + ", sum=" + sum + ", average=" + getAverage() + ", min=" + getMin()
+				+ ", max=" + getMax() + "]";
+	}
+}
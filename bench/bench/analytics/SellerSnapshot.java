@@ -0,0 +1,155 @@
+package bench.analytics;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.dao.SellerDao;
+import model.entities.Seller;
+
+/**
+ * Read-only, column-oriented copy of the seller table for in-memory
+ * analytics. Row i is ids[i], departmentIds[i], salaries[i], birthDays[i]
+ * (epoch day, or {@link #NO_BIRTH_DATE}) and names[nameCodes[i]]; repeated
+ * names are stored once. A row costs about 20 bytes of primitive arrays
+ * instead of a Seller with its boxed fields and Date.
+ *
+ * Rows are in id order. The arrays are shared with callers for speed and
+ * must not be modified.
+ */
+public class SellerSnapshot {
+
+	public static final int NO_BIRTH_DATE = Integer.MIN_VALUE;
+
+	private final int size;
+	private final int[] ids;
+	private final int[] departmentIds;
+	private final double[] salaries;
+	private final int[] birthDays;
+	private final int[] nameCodes;
+	private final String[] names;
+	private final Map<Integer, String> departmentNames;
+
+	private SellerSnapshot(Builder builder) {
+		this.size = builder.size;
+		this.ids = Arrays.copyOf(builder.ids, size);
+		this.departmentIds = Arrays.copyOf(builder.departmentIds, size);
+		this.salaries = Arrays.copyOf(builder.salaries, size);
+		this.birthDays = Arrays.copyOf(builder.birthDays, size);
+		this.nameCodes = Arrays.copyOf(builder.nameCodes, size);
+		this.names = new String[builder.nameDictionary.size()];
+		for (Map.Entry<String, Integer> e : builder.nameDictionary.entrySet()) {
+			names[e.getValue()] = e.getKey();
+		}
+		this.departmentNames = new HashMap<>(builder.departmentNames);
+	}
+
+	/* streams the table, so no List<Seller> is ever held in memory */
+	public static SellerSnapshot load(SellerDao dao, int fetchSize) {
+		Builder builder = new Builder();
+		dao.forEach(fetchSize, builder::add);
+		return builder.build();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getId(int row) {
+		return ids[row];
+	}
+
+	public int getDepartmentId(int row) {
+		return departmentIds[row];
+	}
+
+	public double getSalary(int row) {
+		return salaries[row];
+	}
+
+	public int getBirthDay(int row) {
+		return birthDays[row];
+	}
+
+	public String getName(int row) {
+		return names[nameCodes[row]];
+	}
+
+	public String getDepartmentName(int departmentId) {
+		return departmentNames.get(departmentId);
+	}
+
+	public int[] ids() {
+		return ids;
+	}
+
+	public int[] departmentIds() {
+		return departmentIds;
+	}
+
+	public double[] salaries() {
+		return salaries;
+	}
+
+	public int[] birthDays() {
+		return birthDays;
+	}
+
+	/* the departments that have sellers, ascending */
+	public int[] distinctDepartmentIds() {
+		int[] deps = new int[departmentNames.size()];
+		int i = 0;
+		for (Integer id : departmentNames.keySet()) {
+			deps[i++] = id;
+		}
+		Arrays.sort(deps);
+		return deps;
+	}
+
+	public int distinctNames() {
+		return names.length;
+	}
+
+	public static class Builder {
+		private int size = 0;
+		private int[] ids = new int[1024];
+		private int[] departmentIds = new int[1024];
+		private double[] salaries = new double[1024];
+		private int[] birthDays = new int[1024];
+		private int[] nameCodes = new int[1024];
+		private final Map<String, Integer> nameDictionary = new HashMap<>();
+		private final Map<Integer, String> departmentNames = new HashMap<>();
+
+		public void add(Seller obj) {
+			if (size == ids.length) {
+				int capacity = size + (size >> 1);
+				ids = Arrays.copyOf(ids, capacity);
+				departmentIds = Arrays.copyOf(departmentIds, capacity);
+				salaries = Arrays.copyOf(salaries, capacity);
+				birthDays = Arrays.copyOf(birthDays, capacity);
+				nameCodes = Arrays.copyOf(nameCodes, capacity);
+			}
+			ids[size] = obj.getId();
+			departmentIds[size] = obj.getDepartment().getId();
+			departmentNames.putIfAbsent(obj.getDepartment().getId(), obj.getDepartment().getName());
+			salaries[size] = obj.getBaseSalary() == null ? 0.0 : obj.getBaseSalary();
+			birthDays[size] = obj.getBirthDate() == null ? NO_BIRTH_DATE
+					: (int) Instant.ofEpochMilli(obj.getBirthDate().getTime()).atZone(ZoneId.systemDefault())
+							.toLocalDate().toEpochDay();
+			String name = obj.getName() == null ? "" : obj.getName();
+			Integer code = nameDictionary.get(name);
+			if (code == null) {
+				code = nameDictionary.size();
+				nameDictionary.put(name, code);
+			}
+			nameCodes[size] = code;
+			size++;
+		}
+
+		public SellerSnapshot build() {
+			return new SellerSnapshot(this);
+		}
+	}
+}
@@ -0,0 +1,460 @@
+package bench.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+import model.entities.DepartmentSalaryStats;
+
+/**
+ * Parallel filter, aggregate, group-by, histogram and raise simulation over a
+ * {@link SellerSnapshot}.
+ * Work is split into ranges of at least {@link #THRESHOLD} rows and run on
+ * the common fork/join pool, so a report uses every core.
+ *
+ * This lives with the benchmarks, not in the application: ReportService
+ * caches each report until the next write, so every report would pay for a
+ * fresh snapshot, and loading one costs more than the ReportDao query it
+ * would replace (see snapshot.load and the salaryStatsByDepartment
+ * benchmarks).
+ *
+ * A selection is an ascending int[] of row numbers, as returned by
+ * {@link #filter}; a null selection means every row.
+ */
+public class SnapshotOperators {
+
+	static final int THRESHOLD = 1 << 14;
+
+	private SnapshotOperators() {
+	}
+
+	public static IntPredicate departmentIs(SellerSnapshot snapshot, int departmentId) {
+		int[] departmentIds = snapshot.departmentIds();
+		return row -> departmentIds[row] == departmentId;
+	}
+
+	public static IntPredicate salaryBetween(SellerSnapshot snapshot, double min, double max) {
+		double[] salaries = snapshot.salaries();
+		return row -> salaries[row] >= min && salaries[row] <= max;
+	}
+
+	/* both ends inclusive; rows without a birth date never match */
+	public static IntPredicate bornBetween(SellerSnapshot snapshot, LocalDate from, LocalDate to) {
+		int[] birthDays = snapshot.birthDays();
+		int first = (int) from.toEpochDay();
+		int last = (int) to.toEpochDay();
+		return row -> birthDays[row] != SellerSnapshot.NO_BIRTH_DATE && birthDays[row] >= first
+				&& birthDays[row] <= last;
+	}
+
+	public static int[] filter(SellerSnapshot snapshot, IntPredicate predicate) {
+		return ForkJoinPool.commonPool().invoke(new FilterTask(predicate, 0, snapshot.size()));
+	}
+
+	public static int[] filter(SellerSnapshot snapshot, int[] selection, IntPredicate predicate) {
+		if (selection == null) {
+			return filter(snapshot, predicate);
+		}
+		int[] matches = ForkJoinPool.commonPool()
+				.invoke(new FilterTask(i -> predicate.test(selection[i]), 0, selection.length));
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = selection[matches[i]];
+		}
+		return matches;
+	}
+
+	public static SalaryStats aggregate(SellerSnapshot snapshot, int[] selection) {
+		return ForkJoinPool.commonPool()
+				.invoke(new AggregateTask(snapshot.salaries(), selection, 0, length(snapshot, selection)));
+	}
+
+	public static Map<Integer, SalaryStats> groupByDepartment(SellerSnapshot snapshot, int[] selection) {
+		return ForkJoinPool.commonPool().invoke(new GroupByTask(snapshot.departmentIds(), snapshot.salaries(),
+				selection, 0, length(snapshot, selection)));
+	}
+
+	public static long[] salaryHistogram(SellerSnapshot snapshot, double low, double high, int buckets) {
+		return ForkJoinPool.commonPool()
+				.invoke(new HistogramTask(snapshot.salaries(), low, high, buckets, 0, snapshot.size()));
+	}
+
+	/*
+	 * What-if payroll: every salary raised by the percentage given for its
+	 * department (0 for departments not in the map). The snapshot is left
+	 * untouched; the new salaries come back in row order.
+	 */
+	public static double[] simulateRaise(SellerSnapshot snapshot, Map<Integer, Double> percentByDepartment) {
+		double[] factors = SalaryKernels.raiseFactors(snapshot.departmentIds(), percentByDepartment);
+		double[] raised = new double[snapshot.size()];
+		ForkJoinPool.commonPool()
+				.invoke(new RaiseTask(snapshot.salaries(), snapshot.departmentIds(), factors, raised, 0, snapshot.size()));
+		return raised;
+	}
+
+	/*
+	 * The report of ReportDao#salaryStatsByDepartment, from the snapshot.
+	 * Every row gets a (department, age band) group key in parallel, the
+	 * salaries are bucketed so each group is contiguous, and the groups are
+	 * folded in parallel, like the GROUP BY of the database query.
+	 */
+	public static List<DepartmentSalaryStats> salaryStatsByDepartment(SellerSnapshot snapshot,
+			List<LocalDate> bandCutoffs) {
+		int[] cutoffs = new int[bandCutoffs.size()];
+		for (int i = 0; i < cutoffs.length; i++) {
+			cutoffs[i] = (int) bandCutoffs.get(i).toEpochDay();
+		}
+		int bands = cutoffs.length + 1;
+		int[] deps = snapshot.distinctDepartmentIds();
+		int[] denseIndex = new int[deps.length == 0 ? 0 : deps[deps.length - 1] + 1];
+		for (int i = 0; i < deps.length; i++) {
+			denseIndex[deps[i]] = i;
+		}
+
+		int n = snapshot.size();
+		int[] keys = new int[n];
+		ForkJoinPool.commonPool()
+				.invoke(new GroupKeyTask(snapshot.departmentIds(), snapshot.birthDays(), denseIndex, cutoffs, keys, 0, n));
+
+		int groups = deps.length * bands;
+		int[] starts = new int[groups + 1];
+		for (int key : keys) {
+			starts[key + 1]++;
+		}
+		for (int g = 0; g < groups; g++) {
+			starts[g + 1] += starts[g];
+		}
+		int[] next = Arrays.copyOf(starts, groups);
+		double[] salaries = snapshot.salaries();
+		double[] grouped = new double[n];
+		for (int i = 0; i < n; i++) {
+			grouped[next[keys[i]]++] = salaries[i];
+		}
+
+		SalaryStats[] stats = new SalaryStats[groups];
+		ForkJoinPool.commonPool().invoke(new GroupFoldTask(grouped, starts, stats, 0, groups));
+
+		List<DepartmentSalaryStats> list = new ArrayList<>(deps.length);
+		for (int d = 0; d < deps.length; d++) {
+			DepartmentSalaryStats dep = new DepartmentSalaryStats(deps[d], snapshot.getDepartmentName(deps[d]), bands);
+			for (int band = 0; band < bands; band++) {
+				SalaryStats group = stats[d * bands + band];
+				if (group.getCount() > 0) {
+					dep.addGroup(band, (int) group.getCount(), group.getSum(), group.getMin(), group.getMax());
+				}
+			}
+			list.add(dep);
+		}
+		list.sort(Comparator.comparing(DepartmentSalaryStats::getDepartmentName,
+				Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+				.thenComparingInt(DepartmentSalaryStats::getDepartmentId));
+		return list;
+	}
+
+	public static double sum(double[] values) {
+		return ForkJoinPool.commonPool().invoke(new SumTask(values, 0, values.length));
+	}
+
+	private static int length(SellerSnapshot snapshot, int[] selection) {
+		return selection == null ? snapshot.size() : selection.length;
+	}
+
+	/* matching positions in [from, to), ascending */
+	private static class FilterTask extends RecursiveTask<int[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final IntPredicate predicate;
+		private final int from;
+		private final int to;
+
+		FilterTask(IntPredicate predicate, int from, int to) {
+			this.predicate = predicate;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (to - from <= THRESHOLD) {
+				int[] matches = new int[to - from];
+				int count = 0;
+				for (int i = from; i < to; i++) {
+					if (predicate.test(i)) {
+						matches[count++] = i;
+					}
+				}
+				return Arrays.copyOf(matches, count);
+			}
+			int mid = (from + to) >>> 1;
+			FilterTask left = new FilterTask(predicate, from, mid);
+			left.fork();
+			int[] right = new FilterTask(predicate, mid, to).compute();
+			int[] leftMatches = left.join();
+			int[] matches = Arrays.copyOf(leftMatches, leftMatches.length + right.length);
+			System.arraycopy(right, 0, matches, leftMatches.length, right.length);
+			return matches;
+		}
+	}
+
+	private static class AggregateTask extends RecursiveTask<SalaryStats> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] salaries;
+		private final int[] selection;
+		private final int from;
+		private final int to;
+
+		AggregateTask(double[] salaries, int[] selection, int from, int to) {
+			this.salaries = salaries;
+			this.selection = selection;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SalaryStats compute() {
+			if (to - from <= THRESHOLD) {
+				SalaryStats stats = new SalaryStats();
+				if (selection == null) {
+					stats.add(to - from, SalaryKernels.sum(salaries, from, to), SalaryKernels.min(salaries, from, to),
+							SalaryKernels.max(salaries, from, to));
+					return stats;
+				}
+				for (int i = from; i < to; i++) {
+					stats.add(salaries[selection[i]]);
+				}
+				return stats;
+			}
+			int mid = (from + to) >>> 1;
+			AggregateTask left = new AggregateTask(salaries, selection, from, mid);
+			left.fork();
+			SalaryStats right = new AggregateTask(salaries, selection, mid, to).compute();
+			return left.join().combine(right);
+		}
+	}
+
+	private static class GroupByTask extends RecursiveTask<Map<Integer, SalaryStats>> {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] departmentIds;
+		private final double[] salaries;
+		private final int[] selection;
+		private final int from;
+		private final int to;
+
+		GroupByTask(int[] departmentIds, double[] salaries, int[] selection, int from, int to) {
+			this.departmentIds = departmentIds;
+			this.salaries = salaries;
+			this.selection = selection;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Map<Integer, SalaryStats> compute() {
+			if (to - from <= THRESHOLD) {
+				Map<Integer, SalaryStats> groups = new HashMap<>();
+				int lastDepartment = 0;
+				SalaryStats last = null;
+				for (int i = from; i < to; i++) {
+					int row = selection == null ? i : selection[i];
+					int dep = departmentIds[row];
+					// rows of one department tend to cluster, so skip the map lookup for runs
+					if (last == null || dep != lastDepartment) {
+						last = groups.computeIfAbsent(dep, k -> new SalaryStats());
+						lastDepartment = dep;
+					}
+					last.add(salaries[row]);
+				}
+				return groups;
+			}
+			int mid = (from + to) >>> 1;
+			GroupByTask left = new GroupByTask(departmentIds, salaries, selection, from, mid);
+			left.fork();
+			Map<Integer, SalaryStats> right = new GroupByTask(departmentIds, salaries, selection, mid, to).compute();
+			Map<Integer, SalaryStats> groups = left.join();
+			for (Map.Entry<Integer, SalaryStats> e : right.entrySet()) {
+				groups.merge(e.getKey(), e.getValue(), SalaryStats::combine);
+			}
+			return groups;
+		}
+	}
+
+	private static class SumTask extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final int from;
+		private final int to;
+
+		SumTask(double[] values, int from, int to) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Double compute() {
+			if (to - from <= THRESHOLD) {
+				return SalaryKernels.sum(values, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			SumTask left = new SumTask(values, from, mid);
+			left.fork();
+			double right = new SumTask(values, mid, to).compute();
+			return left.join() + right;
+		}
+	}
+
+	private static class HistogramTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] values;
+		private final double low;
+		private final double high;
+		private final int buckets;
+		private final int from;
+		private final int to;
+
+		HistogramTask(double[] values, double low, double high, int buckets, int from, int to) {
+			this.values = values;
+			this.low = low;
+			this.high = high;
+			this.buckets = buckets;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (to - from <= THRESHOLD) {
+				return SalaryKernels.histogram(values, from, to, low, high, buckets);
+			}
+			int mid = (from + to) >>> 1;
+			HistogramTask left = new HistogramTask(values, low, high, buckets, from, mid);
+			left.fork();
+			long[] counts = new HistogramTask(values, low, high, buckets, mid, to).compute();
+			long[] leftCounts = left.join();
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += leftCounts[i];
+			}
+			return counts;
+		}
+	}
+
+	/* keys[i] = department index * bands + age band, as in ReportDaoMemory */
+	private static class GroupKeyTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] departmentIds;
+		private final int[] birthDays;
+		private final int[] denseIndex;
+		private final int[] cutoffs;
+		private final int[] keys;
+		private final int from;
+		private final int to;
+
+		GroupKeyTask(int[] departmentIds, int[] birthDays, int[] denseIndex, int[] cutoffs, int[] keys, int from,
+				int to) {
+			this.departmentIds = departmentIds;
+			this.birthDays = birthDays;
+			this.denseIndex = denseIndex;
+			this.cutoffs = cutoffs;
+			this.keys = keys;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				int bands = cutoffs.length + 1;
+				for (int i = from; i < to; i++) {
+					int band = 0;
+					while (band < cutoffs.length && birthDays[i] <= cutoffs[band]) {
+						band++;
+					}
+					keys[i] = denseIndex[departmentIds[i]] * bands + band;
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new GroupKeyTask(departmentIds, birthDays, denseIndex, cutoffs, keys, from, mid),
+					new GroupKeyTask(departmentIds, birthDays, denseIndex, cutoffs, keys, mid, to));
+		}
+	}
+
+	/* stats[g] for the groups in [from, to); group g is grouped[starts[g] .. starts[g + 1]) */
+	private static class GroupFoldTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] grouped;
+		private final int[] starts;
+		private final SalaryStats[] stats;
+		private final int from;
+		private final int to;
+
+		GroupFoldTask(double[] grouped, int[] starts, SalaryStats[] stats, int from, int to) {
+			this.grouped = grouped;
+			this.starts = starts;
+			this.stats = stats;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1 || starts[to] - starts[from] <= THRESHOLD) {
+				for (int g = from; g < to; g++) {
+					SalaryStats group = new SalaryStats();
+					for (int i = starts[g]; i < starts[g + 1]; i++) {
+						group.add(grouped[i]);
+					}
+					stats[g] = group;
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new GroupFoldTask(grouped, starts, stats, from, mid),
+					new GroupFoldTask(grouped, starts, stats, mid, to));
+		}
+	}
+
+	private static class RaiseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] salaries;
+		private final int[] departmentIds;
+		private final double[] factors;
+		private final double[] out;
+		private final int from;
+		private final int to;
+
+		RaiseTask(double[] salaries, int[] departmentIds, double[] factors, double[] out, int from, int to) {
+			this.salaries = salaries;
+			this.departmentIds = departmentIds;
+			this.factors = factors;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				SalaryKernels.applyRaise(salaries, departmentIds, factors, out, from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new RaiseTask(salaries, departmentIds, factors, out, from, mid),
+					new RaiseTask(salaries, departmentIds, factors, out, mid, to));
+		}
+	}
+}
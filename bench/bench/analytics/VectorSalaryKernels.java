@@ -0,0 +1,100 @@
+package bench.analytics;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link SalaryKernels} loops written with the incubating Vector API,
+ * one lane per salary at the widest shape the CPU supports. Only loaded
+ * when the JVM runs with --add-modules jdk.incubator.vector; SalaryKernels
+ * checks that and falls back to its scalar loops otherwise.
+ *
+ * Sums add the lanes in a different order than the scalar loop, so they
+ * can differ from it in the last bits. All ranges are [from, to).
+ */
+class VectorSalaryKernels {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private VectorSalaryKernels() {
+	}
+
+	static double sum(double[] values, int from, int to) {
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			acc = acc.add(DoubleVector.fromArray(SPECIES, values, i));
+		}
+		double s = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < to; i++) {
+			s += values[i];
+		}
+		return s;
+	}
+
+	static double min(double[] values, int from, int to) {
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			acc = acc.min(DoubleVector.fromArray(SPECIES, values, i));
+		}
+		double m = acc.reduceLanes(VectorOperators.MIN);
+		for (; i < to; i++) {
+			m = values[i] < m ? values[i] : m;
+		}
+		return m;
+	}
+
+	static double max(double[] values, int from, int to) {
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			acc = acc.max(DoubleVector.fromArray(SPECIES, values, i));
+		}
+		double m = acc.reduceLanes(VectorOperators.MAX);
+		for (; i < to; i++) {
+			m = values[i] > m ? values[i] : m;
+		}
+		return m;
+	}
+
+	/*
+	 * The clamped bucket positions are computed in lanes into a buffer; the
+	 * increments stay scalar, since lanes can hit the same bucket.
+	 */
+	static long[] histogram(double[] values, int from, int to, double low, double high, int buckets) {
+		long[] counts = new long[buckets];
+		double scale = buckets / (high - low);
+		double last = buckets - 1;
+		double[] index = new double[Math.max(SPECIES.length(), Math.min(to - from, 4096))];
+		for (int start = from; start < to; start += index.length) {
+			int end = Math.min(to, start + index.length);
+			int i = start;
+			for (int bound = start + SPECIES.loopBound(end - start); i < bound; i += SPECIES.length()) {
+				DoubleVector.fromArray(SPECIES, values, i).sub(low).mul(scale).max(0.0).min(last)
+						.intoArray(index, i - start);
+			}
+			for (; i < end; i++) {
+				index[i - start] = Math.max(0.0, Math.min(last, (values[i] - low) * scale));
+			}
+			for (int j = 0; j < end - start; j++) {
+				counts[(int) index[j]]++;
+			}
+		}
+		return counts;
+	}
+
+	/* the factors are gathered through the department ids */
+	static void applyRaise(double[] salaries, int[] departmentIds, double[] factors, double[] out, int from,
+			int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			DoubleVector factor = DoubleVector.fromArray(SPECIES, factors, 0, departmentIds, i);
+			DoubleVector.fromArray(SPECIES, salaries, i).mul(factor).intoArray(out, i);
+		}
+		for (; i < to; i++) {
+			out[i] = salaries[i] * factors[departmentIds[i]];
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import db.DB;
+import db.DbException;
+import model.services.ExportService;
+import model.services.ServiceExecutor;
+
+/**
+ * Headless export, for scripts and scheduled jobs:
+ *
+ * java application.Export sellers|departments <file>[.csv|.jsonl][.gz]
+ *
+ * The format follows the file extension and a trailing .gz compresses the output.
+ */
+public class Export {
+
+	public static void main(String[] args) {
+		if (args.length != 2 || !(args[0].equals("sellers") || args[0].equals("departments"))) {
+			System.err.println("Usage: Export sellers|departments <file>[.csv|.jsonl][.gz]");
+			System.exit(2);
+		}
+		Path target = Paths.get(args[1]);
+		ExportService.Format format = ExportService.Format.fromFileName(args[1]);
+		boolean gzip = ExportService.isGzip(target);
+
+		// exit only after the finally block: System.exit would skip it and leave the pool open
+		int status = 0;
+		try {
+			long start = System.currentTimeMillis();
+			ExportService service = new ExportService();
+			long rows = args[0].equals("sellers") ? service.exportSellers(target, format, gzip)
+					: service.exportDepartments(target, format, gzip);
+			System.out.println(rows + " " + args[0] + " written to " + target + " in "
+					+ (System.currentTimeMillis() - start) + " ms");
+		} catch (IOException | DbException e) {
+			System.err.println("Export failed: " + e.getMessage());
+			status = 1;
+		} finally {
+			ServiceExecutor.shutdown();
+			DB.closePool();
+		}
+		if (status != 0) {
+			System.exit(status);
+		}
+	}
+}
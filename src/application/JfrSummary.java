@@ -0,0 +1,126 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the application's events in a flight recording (see
+ * coursejdbc.jfc):
+ *
+ * java application.JfrSummary recording.jfr [top]
+ *
+ * Statements are grouped by SQL id, FXML loads by file and table refreshes
+ * by table, and each group is listed by total time, the top ones first.
+ */
+public class JfrSummary {
+
+	private static final String STATEMENT = "coursejdbc.Statement";
+	private static final String FXML_LOAD = "coursejdbc.FxmlLoad";
+	private static final String TABLE_REFRESH = "coursejdbc.TableRefresh";
+
+	private static class Group {
+		final String key;
+		final String label;
+		long count;
+		long rows;
+		long totalNanos;
+		long maxNanos;
+
+		Group(String key, String label) {
+			this.key = key;
+			this.label = label;
+		}
+
+		void add(Duration duration, long rows) {
+			long nanos = duration.toNanos();
+			count++;
+			this.rows += rows;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: JfrSummary <recording.jfr> [top]");
+			System.exit(2);
+		}
+		int top = args.length == 2 ? Integer.parseInt(args[1]) : 20;
+
+		Map<String, Map<String, Group>> groups = new HashMap<>();
+		groups.put(STATEMENT, new HashMap<>());
+		groups.put(FXML_LOAD, new HashMap<>());
+		groups.put(TABLE_REFRESH, new HashMap<>());
+
+		Path file = Paths.get(args[0]);
+		try (RecordingFile recording = new RecordingFile(file)) {
+			while (recording.hasMoreEvents()) {
+				RecordedEvent event = recording.readEvent();
+				String type = event.getEventType().getName();
+				switch (type) {
+				case STATEMENT:
+					group(groups, type, event.getString("sqlId"), event.getString("sql"))
+							.add(event.getDuration(), event.getLong("rows"));
+					break;
+				case FXML_LOAD:
+					String fxml = event.getString("fxml");
+					group(groups, type, fxml, fxml).add(event.getDuration(), 0);
+					break;
+				case TABLE_REFRESH:
+					String table = event.getString("table");
+					group(groups, type, table, table).add(event.getDuration(), event.getInt("rows"));
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Cannot read " + file + ": " + e.getMessage());
+			System.exit(1);
+		}
+
+		print("Statements", "sql id", groups.get(STATEMENT), top);
+		print("FXML loads", "fxml", groups.get(FXML_LOAD), top);
+		print("Table refreshes", "table", groups.get(TABLE_REFRESH), top);
+	}
+
+	private static Group group(Map<String, Map<String, Group>> groups, String type, String key, String label) {
+		return groups.get(type).computeIfAbsent(String.valueOf(key), k -> new Group(k, label));
+	}
+
+	/* statements print their SQL after the id; for the others the key says it all */
+	private static void print(String title, String keyName, Map<String, Group> groups, int top) {
+		List<Group> list = new ArrayList<>(groups.values());
+		list.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+		System.out.println();
+		System.out.println(title + ": " + list.size());
+		if (list.isEmpty()) {
+			return;
+		}
+		System.out.println(String.format(Locale.ROOT, "%8s %12s %10s %10s %10s  %s", "count", "rows", "total ms",
+				"mean ms", "max ms", keyName));
+		for (Group g : list.subList(0, Math.min(top, list.size()))) {
+			String what = g.key.equals(g.label) ? g.key : g.key + "  " + abbreviate(g.label, 100);
+			System.out.println(String.format(Locale.ROOT, "%8d %12d %10.1f %10.3f %10.3f  %s", g.count, g.rows,
+					g.totalNanos / 1e6, g.totalNanos / 1e6 / g.count, g.maxNanos / 1e6, what));
+		}
+	}
+
+	private static String abbreviate(String text, int max) {
+		if (text == null) {
+			return "";
+		}
+		text = text.replaceAll("\\s+", " ");
+		return text.length() <= max ? text : text.substring(0, max - 3) + "...";
+	}
+}
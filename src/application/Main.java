@@ -2,11 +2,13 @@ package application;
 	
 import java.io.IOException;
 
+import db.DB;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.ScrollPane;
 import javafx.stage.Stage;
+import model.services.ServiceExecutor;
 
 
 public class Main extends Application {
@@ -33,6 +35,12 @@ public class Main extends Application {
 		}
 	}
 	
+	@Override
+	public void stop() {
+		ServiceExecutor.shutdown();
+		DB.closePool();
+	}
+	
 	public static Scene getScene() {
 		return mainScene;
 	}
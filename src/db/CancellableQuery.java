@@ -0,0 +1,73 @@
+package db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Lets another thread cancel the statement a DAO is running for this query.
+ * The work is started with {@link #run(Supplier)} on the worker thread; DAO
+ * code calls {@link #register(Statement)} right before executing and
+ * {@link #unregister()} once the results are read. {@link #cancel()} sends
+ * Statement.cancel() to whatever is registered at that moment, and makes a
+ * query that has not started yet fail as soon as it registers.
+ */
+public class CancellableQuery {
+
+	private static final ThreadLocal<CancellableQuery> current = new ThreadLocal<>();
+
+	private Statement statement;
+	private boolean cancelled = false;
+
+	public <T> T run(Supplier<T> work) {
+		current.set(this);
+		try {
+			return work.get();
+		} finally {
+			current.remove();
+		}
+	}
+
+	public synchronized void cancel() {
+		cancelled = true;
+		cancelStatement(statement);
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/* no-op when the calling thread is not running a CancellableQuery */
+	public static void register(Statement st) {
+		CancellableQuery query = current.get();
+		if (query == null) {
+			return;
+		}
+		synchronized (query) {
+			if (query.cancelled) {
+				throw new DbException("Query cancelled");
+			}
+			query.statement = st;
+		}
+	}
+
+	public static void unregister() {
+		CancellableQuery query = current.get();
+		if (query != null) {
+			synchronized (query) {
+				query.statement = null;
+			}
+		}
+	}
+
+	private static void cancelStatement(Statement st) {
+		if (st == null) {
+			return;
+		}
+		try {
+			st.cancel();
+		} catch (SQLException e) {
+			// the query may have finished already
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+
+/**
+ * Bounded pool of JDBC connections. Callers borrow a connection with
+ * {@link #getConnection()} for a single operation and hand it back with
+ * {@link #releaseConnection(Connection)} (or close()).
+ *
+ * Each connection keeps an LRU cache of its prepared statements (see
+ * {@link StatementCache}), sized by pool.statementCacheSize.
+ *
+ * The time callers spend in getConnection (waiting for a permit and, on a
+ * miss, opening a connection) is recorded as "pool.getConnection".
+ *
+ * Statements slower than slowQuery.thresholdMs go to the pool's
+ * {@link SlowQueryLog}.
+ *
+ * Settings are read from the "pool.*" keys of db.properties. Only user,
+ * password and the "jdbc.driver.*" keys (with the prefix removed, e.g.
+ * jdbc.driver.useSSL) are passed on to the driver.
+ */
+public class ConnectionPool {
+
+	private static final String DRIVER_PREFIX = "jdbc.driver.";
+
+	private final String url;
+	private final Properties driverProps = new Properties();
+
+	private final int minSize;
+	private final int maxSize;
+	private final long idleTimeoutMillis;
+	private final long borrowTimeoutMillis;
+	private final int validationTimeoutSeconds;
+	private final int statementCacheSize;
+
+	private final Semaphore permits;
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private final Map<Connection, PooledConnection> borrowed = new IdentityHashMap<>();
+	/* physical connections open or being opened, wherever they are; guarded by this */
+	private int openCount = 0;
+	private final LongAdder statementCacheHits = new LongAdder();
+	private final LongAdder statementCacheMisses = new LongAdder();
+	private final OperationMetrics waitMetrics = MetricsRegistry.get("pool.getConnection");
+	private final ScheduledExecutorService evictor;
+	private final SlowQueryLog slowQueryLog;
+
+	private volatile boolean closed = false;
+
+	public ConnectionPool(Properties props) {
+		url = props.getProperty("dburl");
+		if (url == null) {
+			throw new DbException("dburl is missing from db.properties");
+		}
+		for (String key : new String[] { "user", "password" }) {
+			if (props.getProperty(key) != null) {
+				driverProps.setProperty(key, props.getProperty(key));
+			}
+		}
+		for (String key : props.stringPropertyNames()) {
+			if (key.startsWith(DRIVER_PREFIX)) {
+				driverProps.setProperty(key.substring(DRIVER_PREFIX.length()), props.getProperty(key));
+			}
+		}
+
+		minSize = intProperty(props, "pool.minSize", 1);
+		maxSize = intProperty(props, "pool.maxSize", 10);
+		idleTimeoutMillis = intProperty(props, "pool.idleTimeoutMs", 300_000);
+		borrowTimeoutMillis = intProperty(props, "pool.borrowTimeoutMs", 5_000);
+		validationTimeoutSeconds = intProperty(props, "pool.validationTimeoutSec", 2);
+		statementCacheSize = intProperty(props, "pool.statementCacheSize", 32);
+		long evictionIntervalMillis = intProperty(props, "pool.evictionIntervalMs", 30_000);
+
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new DbException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+
+		permits = new Semaphore(maxSize, true);
+		slowQueryLog = new SlowQueryLog(this, props);
+
+		evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "db-pool-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+		evictor.scheduleWithFixedDelay(this::maintain, evictionIntervalMillis, evictionIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public Connection getConnection() {
+		if (closed) {
+			throw new DbException("Connection pool is closed");
+		}
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			Connection conn = borrow();
+			success = true;
+			return conn;
+		} finally {
+			waitMetrics.record(System.nanoTime() - start, success);
+		}
+	}
+
+	private Connection borrow() {
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new DbException(
+						"Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while waiting for a database connection");
+		}
+
+		try {
+			PooledConnection pc = takeValidIdleConnection();
+			if (pc == null) {
+				pc = createConnection();
+			}
+			synchronized (this) {
+				borrowed.put(pc.proxy, pc);
+			}
+			return pc.proxy;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public void releaseConnection(Connection conn) {
+		if (conn == null) {
+			return;
+		}
+		PooledConnection pc;
+		synchronized (this) {
+			pc = borrowed.remove(conn);
+		}
+		if (pc == null) {
+			return;
+		}
+		try {
+			boolean reusable = !closed && reset(pc.physical);
+			if (reusable) {
+				pc.idleSince = System.currentTimeMillis();
+				synchronized (this) {
+					idle.addFirst(pc);
+				}
+			} else {
+				discard(pc);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	public void close() {
+		closed = true;
+		evictor.shutdownNow();
+		slowQueryLog.close();
+		List<PooledConnection> toClose;
+		synchronized (this) {
+			toClose = new ArrayList<>(idle);
+			idle.clear();
+		}
+		for (PooledConnection pc : toClose) {
+			discard(pc);
+		}
+	}
+
+	public synchronized int getActiveCount() {
+		return borrowed.size();
+	}
+
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public SlowQueryLog getSlowQueryLog() {
+		return slowQueryLog;
+	}
+
+	public long getStatementCacheHits() {
+		return statementCacheHits.sum();
+	}
+
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.sum();
+	}
+
+	private PooledConnection takeValidIdleConnection() {
+		while (true) {
+			PooledConnection pc;
+			synchronized (this) {
+				pc = idle.pollFirst();
+			}
+			if (pc == null) {
+				return null;
+			}
+			if (isValid(pc.physical)) {
+				return pc;
+			}
+			discard(pc);
+		}
+	}
+
+	private PooledConnection createConnection() {
+		synchronized (this) {
+			openCount++;
+		}
+		boolean success = false;
+		try {
+			Connection physical = DriverManager.getConnection(url, driverProps);
+			PooledConnection pc = new PooledConnection(this, physical, statementCacheSize, statementCacheHits,
+					statementCacheMisses);
+			success = true;
+			return pc;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			if (!success) {
+				synchronized (this) {
+					openCount--;
+				}
+			}
+		}
+	}
+
+	private boolean isValid(Connection conn) {
+		try {
+			return conn.isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private boolean reset(Connection conn) {
+		try {
+			if (conn.isClosed()) {
+				return false;
+			}
+			if (!conn.getAutoCommit()) {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Runs on the evictor thread: closes connections idle for longer than the
+	 * idle timeout (never going below minSize) and tops the pool up to minSize.
+	 * Sizes are taken from openCount, which also counts connections being
+	 * validated or opened by a borrower, and every connection opened here
+	 * holds a permit meanwhile, so the pool stays within maxSize like it does
+	 * for borrowers.
+	 */
+	private void maintain() {
+		List<PooledConnection> expired = new ArrayList<>();
+		int missing;
+		synchronized (this) {
+			long limit = System.currentTimeMillis() - idleTimeoutMillis;
+			int total = openCount;
+			Iterator<PooledConnection> it = idle.descendingIterator();
+			while (it.hasNext() && total > minSize) {
+				PooledConnection pc = it.next();
+				if (pc.idleSince < limit) {
+					it.remove();
+					expired.add(pc);
+					total--;
+				}
+			}
+			missing = minSize - total;
+		}
+		for (PooledConnection pc : expired) {
+			discard(pc);
+		}
+		for (int i = 0; i < missing && !closed; i++) {
+			// every permit taken means the borrowers are using the whole pool already
+			if (!permits.tryAcquire()) {
+				return;
+			}
+			try {
+				PooledConnection pc = createConnection();
+				pc.idleSince = System.currentTimeMillis();
+				synchronized (this) {
+					idle.addLast(pc);
+				}
+			} catch (DbException e) {
+				return;
+			} finally {
+				permits.release();
+			}
+		}
+	}
+
+	private void discard(PooledConnection pc) {
+		pc.statements.closeAll();
+		try {
+			pc.physical.close();
+		} catch (SQLException e) {
+			// the connection is being discarded anyway
+		} finally {
+			synchronized (this) {
+				openCount--;
+			}
+		}
+	}
+
+	private static int intProperty(Properties props, String key, int defaultValue) {
+		String value = props.getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid value for " + key + ": " + value);
+		}
+	}
+}
@@ -3,47 +3,106 @@ package db;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
 import java.util.Properties;
 
 public class DB {
 	
-	private static Connection conn = null;
+	private static Properties props = null;
 	
-	public static Connection getConnection() {
-		if (conn == null) { 
-			try {
-			Properties props = loadProperties();
-			String url = props.getProperty("dburl");
-				conn = DriverManager.getConnection(url, props);
-			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
+	private static ConnectionPool pool = null;
+	
+	public static synchronized ConnectionPool getPool() {
+		if (pool == null) {
+			Properties props = getProperties();
+			ConnectionPool created = new ConnectionPool(props);
+			if (Boolean.parseBoolean(props.getProperty("schema.migrate", "false").trim())) {
+				try {
+					SchemaMigrator.migrate(created, getEngine());
+				} catch (RuntimeException e) {
+					created.close();
+					throw e;
+				}
 			}
+			pool = created;
+		}
+		return pool;
+	}
+	
+	public static Connection getConnection() {
+		return getPool().getConnection();
+	}
+	
+	public static void releaseConnection(Connection conn) {
+		if (conn != null) {
+			getPool().releaseConnection(conn);
+		}
+	}
+	
+	public static synchronized Properties getProperties() {
+		if (props == null) {
+			props = loadProperties();
+		}
+		return props;
+	}
+	
+	/** The selected database engine ("mysql" or "h2"), from dbengine in db.properties. */
+	public static String getEngine() {
+		return getProperties().getProperty("dbengine");
+	}
+	
+	public static int getIntProperty(String key, int defaultValue) {
+		String value = getProperties().getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid value for " + key + ": " + value);
 		}
-		return conn;
 	}
 	
 	private static Properties loadProperties() {
 		try ( FileInputStream fs = new FileInputStream("db.properties")){
 			Properties props = new Properties();
 			props.load(fs);
-			return props;
+			return selectEngine(props);
 		} catch( IOException e) {
 			throw new DbException(e.getMessage());
 		}
 	}
 	
-	public static void closeConnection() { 
-		if (conn != null) {
-			try {
-				conn.close();
-			} catch (SQLException e) {
-				throw new DbException(e.getMessage());
+	/*
+	 * dbengine (or -Ddbengine=...) picks the engine; every key prefixed with
+	 * the engine name ("h2.dburl", "mysql.jdbc.driver.useSSL") overrides the plain key, so
+	 * the pool and the driver only see the settings of the selected engine.
+	 */
+	private static Properties selectEngine(Properties raw) {
+		String engine = System.getProperty("dbengine", raw.getProperty("dbengine", "mysql"));
+		engine = engine.trim().toLowerCase(Locale.ROOT);
+		String prefix = engine + ".";
+		Properties props = new Properties();
+		for (String key : raw.stringPropertyNames()) {
+			props.setProperty(key, raw.getProperty(key));
+		}
+		for (String key : raw.stringPropertyNames()) {
+			if (key.startsWith(prefix)) {
+				props.setProperty(key.substring(prefix.length()), raw.getProperty(key));
 			}
 		}
+		props.setProperty("dbengine", engine);
+		return props;
+	}
+	
+	public static synchronized void closePool() { 
+		if (pool != null) {
+			pool.close();
+			pool = null;
+		}
 	}
 	
 	public static void closeStatement(Statement st) { 
@@ -66,4 +125,19 @@ public class DB {
 		}
 	}
 	
+	/*
+	 * For finally blocks of transactions that did not commit: a failed
+	 * rollback must not hide the original error, and the pool discards a
+	 * connection it cannot reset anyway.
+	 */
+	public static void rollback(Connection conn) {
+		if (conn != null) {
+			try {
+				conn.rollback();
+			} catch (SQLException e) {
+				// the pool's reset retries and drops the connection if that fails too
+			}
+		}
+	}
+	
 }
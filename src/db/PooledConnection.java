@@ -0,0 +1,88 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A physical connection owned by {@link ConnectionPool}. Callers only see
+ * the proxy: prepareStatement goes through the connection's
+ * {@link StatementCache} and close() hands the connection back to the pool.
+ * Every prepared statement is wrapped by a {@link StatementMonitor}.
+ */
+class PooledConnection implements InvocationHandler {
+
+	final Connection physical;
+	final Connection proxy;
+	final StatementCache statements;
+
+	private final ConnectionPool pool;
+
+	long idleSince;
+
+	PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize, LongAdder hits,
+			LongAdder misses) {
+		this.pool = pool;
+		this.physical = physical;
+		this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, this);
+		this.statements = new StatementCache(proxy, statementCacheSize, hits, misses);
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if (name.equals("close")) {
+			pool.releaseConnection(this.proxy);
+			return null;
+		}
+		if (name.equals("prepareStatement")) {
+			return prepareStatement(method, args);
+		}
+		try {
+			return method.invoke(physical, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private PreparedStatement prepareStatement(Method method, Object[] args) throws Throwable {
+		String sql = (String) args[0];
+		String key;
+		Class<?>[] types = method.getParameterTypes();
+		if (args.length == 1) {
+			key = sql;
+		} else if (args.length == 2 && types[1] == int.class) {
+			key = sql + "\u0000keys=" + args[1];
+		} else if (args.length == 3) {
+			key = sql + "\u0000rs=" + args[1] + "," + args[2];
+		} else {
+			// column index/name arrays and holdability variants are rare; leave them uncached
+			return StatementMonitor.wrap((PreparedStatement) invokePhysical(method, args), sql,
+					pool.getSlowQueryLog());
+		}
+		return statements.get(key, () -> {
+			try {
+				return StatementMonitor.wrap((PreparedStatement) invokePhysical(method, args), sql,
+						pool.getSlowQueryLog());
+			} catch (SQLException | RuntimeException e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new SQLException(t);
+			}
+		});
+	}
+
+	private Object invokePhysical(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(physical, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
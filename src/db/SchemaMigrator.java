@@ -0,0 +1,247 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Brings the schema up to the latest version. Each applied migration is
+ * recorded in the schema_version table, so a database is only ever migrated
+ * forward from the version it is at. DB runs it once when the pool is
+ * created if schema.migrate=true (the default for H2 only: against a shared
+ * MySQL server it is meant to be switched on for one deployment).
+ *
+ * A migration holds a lock from creating schema_version until the last
+ * version is recorded, and reads the current version only once it has the
+ * lock, so clients starting together apply each migration once instead of
+ * colliding on the schema_version key. MySQL commits every DDL statement,
+ * which would release row locks, so a named GET_LOCK lock per database is
+ * used; an embedded H2 database belongs to one process, where a lock on
+ * this class serializes the migrations.
+ *
+ * Every step is safe to repeat (CREATE ... IF NOT EXISTS, and an index is
+ * skipped when the table already has one on the same leading columns), so
+ * a database set up by hand is adopted as it is, and a migration that
+ * failed half-way can simply be run again.
+ */
+public class SchemaMigrator {
+
+	private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+	private static final String VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+			+ "Version INT NOT NULL PRIMARY KEY, Description VARCHAR(200) NOT NULL, AppliedAt TIMESTAMP NOT NULL)";
+
+	private static final List<Migration> MIGRATIONS = Arrays.asList(
+			new Migration(1, "department and seller tables",
+					sql("CREATE TABLE IF NOT EXISTS department (Id INT NOT NULL AUTO_INCREMENT, Name VARCHAR(60), "
+							+ "PRIMARY KEY (Id))",
+						"CREATE TABLE IF NOT EXISTS department (Id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+							+ "Name VARCHAR(60))"),
+					sql("CREATE TABLE IF NOT EXISTS seller (Id INT NOT NULL AUTO_INCREMENT, Name VARCHAR(60) NOT NULL, "
+							+ "Email VARCHAR(100) NOT NULL, BirthDate DATETIME NOT NULL, BaseSalary DOUBLE NOT NULL, "
+							+ "DepartmentId INT NOT NULL, PRIMARY KEY (Id), "
+							+ "FOREIGN KEY (DepartmentId) REFERENCES department (Id))",
+						"CREATE TABLE IF NOT EXISTS seller (Id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+							+ "Name VARCHAR(60) NOT NULL, Email VARCHAR(100) NOT NULL, BirthDate TIMESTAMP NOT NULL, "
+							+ "BaseSalary DOUBLE PRECISION NOT NULL, DepartmentId INT NOT NULL, "
+							+ "FOREIGN KEY (DepartmentId) REFERENCES department (Id))")),
+			// findByDepartment and the department filter, then the prefix filters and keyset sorts
+			new Migration(2, "seller indexes for the DAO filters and sorts",
+					index("seller", "seller_department", "DepartmentId"),
+					index("seller", "seller_name", "Name"),
+					index("seller", "seller_email", "Email"),
+					index("seller", "seller_birth_date", "BirthDate"),
+					index("seller", "seller_base_salary", "BaseSalary")));
+
+	public static int latestVersion() {
+		return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+	}
+
+	/** Returns the number of migrations applied. */
+	public static int migrate(ConnectionPool pool, String engine) {
+		Connection conn = null;
+		try {
+			conn = pool.getConnection();
+			return migrate(conn, engine);
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			pool.releaseConnection(conn);
+		}
+	}
+
+	public static int migrate(Connection conn, String engine) throws SQLException {
+		if (!engine.equals("mysql") && !engine.equals("h2")) {
+			throw new DbException("No schema migrations for database engine: " + engine);
+		}
+		if (engine.equals("h2")) {
+			synchronized (SchemaMigrator.class) {
+				return migrateLocked(conn, engine);
+			}
+		}
+		lock(conn);
+		try {
+			return migrateLocked(conn, engine);
+		} finally {
+			unlock(conn);
+		}
+	}
+
+	private static int migrateLocked(Connection conn, String engine) throws SQLException {
+		try (Statement st = conn.createStatement()) {
+			st.execute(VERSION_TABLE);
+		}
+		int current = currentVersion(conn);
+		int applied = 0;
+		for (Migration migration : MIGRATIONS) {
+			if (migration.version <= current) {
+				continue;
+			}
+			try {
+				for (Step step : migration.steps) {
+					step.apply(conn, engine);
+				}
+			} catch (SQLException e) {
+				throw new DbException("Migration " + migration.version + " (" + migration.description + ") failed: "
+						+ e.getMessage());
+			}
+			PreparedStatement st = null;
+			try {
+				st = conn.prepareStatement(
+						"INSERT INTO schema_version (Version, Description, AppliedAt) VALUES (?, ?, CURRENT_TIMESTAMP)");
+				st.setInt(1, migration.version);
+				st.setString(2, migration.description);
+				st.executeUpdate();
+			} finally {
+				DB.closeStatement(st);
+			}
+			applied++;
+		}
+		return applied;
+	}
+
+	/* 0 for a database that has never been migrated */
+	public static int currentVersion(Connection conn) throws SQLException {
+		try (Statement st = conn.createStatement();
+				ResultSet rs = st.executeQuery("SELECT MAX(Version) FROM schema_version")) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	/* the lock name is per database, since GET_LOCK names are server-wide */
+	private static void lock(Connection conn) throws SQLException {
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			st = conn.prepareStatement("SELECT GET_LOCK(CONCAT('schema_version.', DATABASE()), ?)");
+			st.setInt(1, LOCK_TIMEOUT_SECONDS);
+			rs = st.executeQuery();
+			if (!rs.next() || rs.getInt(1) != 1) {
+				throw new DbException("Could not get the schema migration lock within " + LOCK_TIMEOUT_SECONDS
+						+ " s: another client is migrating the database");
+			}
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+		}
+	}
+
+	/* a failed release must not hide the migration's own error; the server drops the lock with the session */
+	private static void unlock(Connection conn) {
+		try (Statement st = conn.createStatement();
+				ResultSet rs = st.executeQuery("SELECT RELEASE_LOCK(CONCAT('schema_version.', DATABASE()))")) {
+			rs.next();
+		} catch (SQLException e) {
+			// nothing to do
+		}
+	}
+
+	private static Step sql(String mysql, String h2) {
+		return (conn, engine) -> {
+			try (Statement st = conn.createStatement()) {
+				st.execute(engine.equals("mysql") ? mysql : h2);
+			}
+		};
+	}
+
+	/*
+	 * MySQL has no CREATE INDEX IF NOT EXISTS, and both engines already index
+	 * foreign key columns, so the existing indexes are looked up first.
+	 */
+	private static Step index(String table, String name, String... columns) {
+		return (conn, engine) -> {
+			if (hasIndex(conn, table, name, columns)) {
+				return;
+			}
+			try (Statement st = conn.createStatement()) {
+				st.execute("CREATE INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")");
+			}
+		};
+	}
+
+	private static boolean hasIndex(Connection conn, String table, String name, String[] columns)
+			throws SQLException {
+		DatabaseMetaData meta = conn.getMetaData();
+		String stored = meta.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+				: meta.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+		Map<String, List<String>> indexes = new LinkedHashMap<>();
+		try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), stored, false, true)) {
+			while (rs.next()) {
+				String index = rs.getString("INDEX_NAME");
+				String column = rs.getString("COLUMN_NAME");
+				if (index == null || column == null) {
+					continue;
+				}
+				List<String> indexColumns = indexes.computeIfAbsent(index, k -> new ArrayList<>());
+				int position = rs.getInt("ORDINAL_POSITION");
+				while (indexColumns.size() < position) {
+					indexColumns.add(null);
+				}
+				indexColumns.set(position - 1, column);
+			}
+		}
+		for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+			if (index.getKey().equalsIgnoreCase(name) || startsWith(index.getValue(), columns)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean startsWith(List<String> indexColumns, String[] columns) {
+		if (indexColumns.size() < columns.length) {
+			return false;
+		}
+		for (int i = 0; i < columns.length; i++) {
+			if (!columns[i].equalsIgnoreCase(indexColumns.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private interface Step {
+		void apply(Connection conn, String engine) throws SQLException;
+	}
+
+	private static class Migration {
+		final int version;
+		final String description;
+		final List<Step> steps;
+
+		Migration(int version, String description, Step... steps) {
+			this.version = version;
+			this.description = description;
+			this.steps = Arrays.asList(steps);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package db;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Statements whose execute call takes longer than slowQuery.thresholdMs
+ * (0 turns the log off). Each one is appended to slowQuery.logFile with its
+ * duration and bind values, and counted per SQL shape (the SQL text with its
+ * ? placeholders).
+ *
+ * With slowQuery.explain=true the first slow execution of a shape is
+ * explained on a background thread, on a connection of its own, with the
+ * same bind values; the plan is kept with the shape and flagged when it
+ * reads a whole table (MySQL type=ALL, H2 tableScan).
+ */
+public class SlowQueryLog {
+
+	private final ConnectionPool pool;
+	private final long thresholdNanos;
+	private final boolean explain;
+	private final Path logFile;
+
+	private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+	private final ExecutorService explainer;
+
+	private BufferedWriter writer = null;
+
+	SlowQueryLog(ConnectionPool pool, Properties props) {
+		this.pool = pool;
+		String threshold = props.getProperty("slowQuery.thresholdMs", "0").trim();
+		try {
+			this.thresholdNanos = Long.parseLong(threshold) * 1_000_000L;
+		} catch (NumberFormatException e) {
+			throw new DbException("Invalid value for slowQuery.thresholdMs: " + threshold);
+		}
+		this.explain = Boolean.parseBoolean(props.getProperty("slowQuery.explain", "false").trim());
+		String file = props.getProperty("slowQuery.logFile", "").trim();
+		this.logFile = file.isEmpty() ? null : Paths.get(file);
+		this.explainer = isEnabled() && explain ? Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "db-slow-query-explain");
+			t.setDaemon(true);
+			return t;
+		}) : null;
+	}
+
+	public boolean isEnabled() {
+		return thresholdNanos > 0;
+	}
+
+	public long getThresholdMillis() {
+		return thresholdNanos / 1_000_000L;
+	}
+
+	boolean isSlow(long nanos) {
+		return nanos >= thresholdNanos;
+	}
+
+	/* called by StatementMonitor with a copy of the statement's bind values */
+	void record(String sql, String method, Object[] binds, long nanos) {
+		if (isExplain(sql)) {
+			return;
+		}
+		Shape shape = shapes.computeIfAbsent(sql, Shape::new);
+		String bindText = Arrays.deepToString(binds);
+		shape.add(nanos, bindText);
+		write(String.format(Locale.ROOT, "%s %.1f ms %s %s binds=%s", Instant.now(), nanos / 1e6, method,
+				oneLine(sql), bindText));
+		if (explainer != null && shape.claimExplain() && explainable(sql)) {
+			try {
+				explainer.execute(() -> explain(shape, binds));
+			} catch (RejectedExecutionException e) {
+				// the pool is closing
+			}
+		}
+	}
+
+	/** The slow statements seen so far, the most total time first. */
+	public List<Shape> getShapes() {
+		// totals keep growing while we sort, so compare a snapshot of them
+		Map<Shape, Long> totals = new IdentityHashMap<>();
+		for (Shape shape : shapes.values()) {
+			totals.put(shape, shape.getTotalNanos());
+		}
+		List<Shape> list = new ArrayList<>(totals.keySet());
+		list.sort(Comparator.comparingLong((Shape shape) -> totals.get(shape)).reversed());
+		return list;
+	}
+
+	public void reset() {
+		shapes.clear();
+	}
+
+	/** Writes the worst offenders with their plans; returns the number of statements written. */
+	public int writeReport(Path path) throws IOException {
+		List<Shape> list = getShapes();
+		try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			out.write(String.format(Locale.ROOT, "Statements slower than %d ms, by total time%n%n",
+					getThresholdMillis()));
+			for (Shape shape : list) {
+				out.write(String.format(Locale.ROOT, "%d slow, total %.1f ms, max %.1f ms%s%n", shape.getCount(),
+						shape.getTotalNanos() / 1e6, shape.getMaxNanos() / 1e6,
+						shape.isFullScan() ? ", FULL TABLE SCAN" : ""));
+				out.write("  " + oneLine(shape.getSql()) + System.lineSeparator());
+				out.write("  last binds: " + shape.getLastBinds() + System.lineSeparator());
+				if (shape.getPlan() != null) {
+					for (String line : shape.getPlan().split("\n")) {
+						out.write("  plan: " + line + System.lineSeparator());
+					}
+				}
+				out.write(System.lineSeparator());
+			}
+		}
+		return list.size();
+	}
+
+	void close() {
+		if (explainer != null) {
+			explainer.shutdownNow();
+		}
+		synchronized (this) {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// nothing left to log to
+				}
+				writer = null;
+			}
+		}
+	}
+
+	private synchronized void write(String line) {
+		if (logFile == null) {
+			return;
+		}
+		try {
+			if (writer == null) {
+				writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+						StandardOpenOption.APPEND);
+			}
+			writer.write(line);
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			// a broken log file must not fail the statement that was logged
+			System.err.println("Slow query log: " + e.getMessage());
+		}
+	}
+
+	private void explain(Shape shape, Object[] binds) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = pool.getConnection();
+			st = conn.prepareStatement("EXPLAIN " + shape.getSql());
+			for (int i = 0; i < binds.length; i++) {
+				st.setObject(i + 1, binds[i]);
+			}
+			rs = st.executeQuery();
+			ResultSetMetaData meta = rs.getMetaData();
+			StringBuilder plan = new StringBuilder();
+			boolean fullScan = false;
+			while (rs.next()) {
+				if (plan.length() > 0) {
+					plan.append('\n');
+				}
+				for (int i = 1; i <= meta.getColumnCount(); i++) {
+					String column = meta.getColumnLabel(i);
+					String value = rs.getString(i);
+					if (meta.getColumnCount() > 1) {
+						plan.append(i > 1 ? ", " : "").append(column).append('=');
+					}
+					plan.append(value == null ? "" : oneLine(value));
+					if (value != null && (column.equalsIgnoreCase("type") && value.equals("ALL")
+							|| value.contains("tableScan"))) {
+						fullScan = true;
+					}
+				}
+			}
+			shape.setPlan(plan.toString(), fullScan);
+		} catch (SQLException | DbException e) {
+			shape.setPlan("EXPLAIN failed: " + e.getMessage(), false);
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	private static boolean isExplain(String sql) {
+		return sql.trim().regionMatches(true, 0, "EXPLAIN", 0, 7);
+	}
+
+	/* inserts have no plan worth reading */
+	private static boolean explainable(String sql) {
+		String s = sql.trim();
+		return s.regionMatches(true, 0, "SELECT", 0, 6) || s.regionMatches(true, 0, "UPDATE", 0, 6)
+				|| s.regionMatches(true, 0, "DELETE", 0, 6);
+	}
+
+	private static String oneLine(String text) {
+		return text.replaceAll("\\s+", " ").trim();
+	}
+
+	/** One SQL shape: how often and how slowly it ran, and its plan once explained. */
+	public static class Shape {
+		private final String sql;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private String lastBinds;
+		private boolean explainClaimed = false;
+		private String plan;
+		private boolean fullScan;
+
+		private Shape(String sql) {
+			this.sql = sql;
+		}
+
+		private synchronized void add(long nanos, String binds) {
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			lastBinds = binds;
+		}
+
+		private synchronized boolean claimExplain() {
+			if (explainClaimed) {
+				return false;
+			}
+			explainClaimed = true;
+			return true;
+		}
+
+		private synchronized void setPlan(String plan, boolean fullScan) {
+			this.plan = plan;
+			this.fullScan = fullScan;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		public synchronized long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public synchronized long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public synchronized String getLastBinds() {
+			return lastBinds;
+		}
+
+		public synchronized String getPlan() {
+			return plan;
+		}
+
+		public synchronized boolean isFullScan() {
+			return fullScan;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by the
+ * SQL text and the prepareStatement variant. The statements handed out are
+ * proxies whose close() clears the parameters and puts the statement back
+ * instead of closing it, so DAO code keeps calling DB.closeStatement as usual.
+ * Statement settings a borrower changed (fetch size, max rows, query timeout,
+ * fetch direction, max field size) are put back to the driver defaults on
+ * close; a statement whose cursor name, escape processing or
+ * closeOnCompletion was changed is not reused.
+ *
+ * A connection is used by one thread at a time, so the cache is not
+ * synchronized.
+ */
+class StatementCache {
+
+	private final Connection conn;
+	private final int maxSize;
+	private final LongAdder hits;
+	private final LongAdder misses;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	StatementCache(Connection conn, int maxSize, LongAdder hits, LongAdder misses) {
+		this.conn = conn;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+	}
+
+	/*
+	 * key identifies the SQL and the prepareStatement overload; create
+	 * prepares a new physical statement on a miss.
+	 */
+	PreparedStatement get(String key, StatementFactory create) throws SQLException {
+		Entry entry = entries.get(key);
+		if (entry != null && !entry.inUse) {
+			hits.increment();
+			entry.inUse = true;
+			return entry.proxy;
+		}
+		misses.increment();
+		PreparedStatement physical = create.prepare();
+		if (entry != null || maxSize == 0) {
+			// already borrowed by an enclosing call on this connection: hand out an uncached statement
+			return physical;
+		}
+		try {
+			entry = new Entry(physical);
+		} catch (SQLException | RuntimeException e) {
+			closeQuietly(physical);
+			throw e;
+		}
+		entry.inUse = true;
+		entries.put(key, entry);
+		evictIfNeeded();
+		return entry.proxy;
+	}
+
+	void closeAll() {
+		for (Entry entry : entries.values()) {
+			closeQuietly(entry.physical);
+		}
+		entries.clear();
+	}
+
+	private void evictIfNeeded() {
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (entries.size() > maxSize && it.hasNext()) {
+			Entry eldest = it.next().getValue();
+			if (!eldest.inUse) {
+				it.remove();
+				closeQuietly(eldest.physical);
+			}
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement st) {
+		try {
+			st.close();
+		} catch (SQLException e) {
+			// the statement is being discarded anyway
+		}
+	}
+
+	interface StatementFactory {
+		PreparedStatement prepare() throws SQLException;
+	}
+
+	private class Entry implements InvocationHandler {
+		final PreparedStatement physical;
+		final PreparedStatement proxy;
+		final int fetchSize;
+		final int maxRows;
+		final int queryTimeout;
+		final int fetchDirection;
+		final int maxFieldSize;
+		boolean inUse = false;
+		boolean settingsChanged = false;
+		boolean discardOnClose = false;
+
+		Entry(PreparedStatement physical) throws SQLException {
+			this.physical = physical;
+			this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, this);
+			this.fetchSize = physical.getFetchSize();
+			this.maxRows = physical.getMaxRows();
+			this.queryTimeout = physical.getQueryTimeout();
+			this.fetchDirection = physical.getFetchDirection();
+			this.maxFieldSize = physical.getMaxFieldSize();
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (inUse) {
+					inUse = false;
+					try {
+						physical.clearParameters();
+						physical.clearBatch();
+						if (settingsChanged) {
+							restoreSettings();
+						}
+					} catch (SQLException e) {
+						discardOnClose = true;
+					}
+					if (discardOnClose) {
+						entries.values().remove(this);
+						closeQuietly(physical);
+					}
+				}
+				return null;
+			case "setFetchSize":
+			case "setMaxRows":
+			case "setLargeMaxRows":
+			case "setQueryTimeout":
+			case "setFetchDirection":
+			case "setMaxFieldSize":
+				settingsChanged = true;
+				return invokePhysical(method, args);
+			case "setCursorName":
+			case "setEscapeProcessing":
+			case "closeOnCompletion":
+				discardOnClose = true;
+				return invokePhysical(method, args);
+			case "isClosed":
+				return !inUse || physical.isClosed();
+			case "getConnection":
+				return conn;
+			default:
+				return invokePhysical(method, args);
+			}
+		}
+
+		private void restoreSettings() throws SQLException {
+			// max rows first: some drivers reject a fetch size above the current max rows
+			physical.setMaxRows(maxRows);
+			physical.setFetchSize(fetchSize);
+			physical.setQueryTimeout(queryTimeout);
+			physical.setFetchDirection(fetchDirection);
+			physical.setMaxFieldSize(maxFieldSize);
+			settingsChanged = false;
+		}
+
+		private Object invokePhysical(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package db;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("coursejdbc.Statement")
+@Label("JDBC Statement")
+@Category({ "Course JDBC", "Database" })
+@Description("One execution of a prepared statement. For queries the event lasts until the result set is closed, so it includes fetching the rows.")
+final class StatementEvent extends Event {
+
+	@Label("SQL Id")
+	@Description("Stable hash of the SQL text, to group executions of the same statement")
+	String sqlId;
+
+	@Label("SQL")
+	String sql;
+
+	@Label("Method")
+	String method;
+
+	@Label("Rows")
+	@Description("Rows read for a query, rows changed for an update or batch")
+	long rows;
+}
@@ -0,0 +1,162 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Wraps every prepared statement the pool hands out (below the statement
+ * cache) and emits a {@link StatementEvent} for each execute call while a
+ * JFR recording has the event enabled. A query's event is committed when
+ * its result set is closed, with the number of rows read.
+ *
+ * When the pool's {@link SlowQueryLog} is enabled the monitor also keeps the
+ * bind values set on the statement and hands execute calls slower than the
+ * threshold to the log.
+ */
+class StatementMonitor implements InvocationHandler {
+
+	private final PreparedStatement physical;
+	private final String sql;
+	private final String sqlId;
+
+	/* null unless the slow query log is on */
+	private final SlowQueryLog slowQueries;
+	private Object[] binds = new Object[0];
+	private int bindCount = 0;
+
+	private StatementMonitor(PreparedStatement physical, String sql, SlowQueryLog slowQueries) {
+		this.physical = physical;
+		this.sql = sql;
+		this.sqlId = Integer.toHexString(sql.hashCode());
+		this.slowQueries = slowQueries != null && slowQueries.isEnabled() ? slowQueries : null;
+	}
+
+	static PreparedStatement wrap(PreparedStatement physical, String sql, SlowQueryLog slowQueries) {
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new StatementMonitor(physical, sql, slowQueries));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if (!name.startsWith("execute")) {
+			if (slowQueries != null) {
+				trackBinds(name, args);
+			}
+			return invokePhysical(method, args);
+		}
+		StatementEvent event = new StatementEvent();
+		event.begin();
+		long start = System.nanoTime();
+		Object result = invokePhysical(method, args);
+		if (slowQueries != null) {
+			long nanos = System.nanoTime() - start;
+			if (slowQueries.isSlow(nanos)) {
+				slowQueries.record(sql, name, Arrays.copyOf(binds, bindCount), nanos);
+			}
+		}
+		if (!event.isEnabled()) {
+			return result;
+		}
+		event.sqlId = sqlId;
+		event.sql = sql;
+		event.method = name;
+		if (result instanceof ResultSet) {
+			return RowCounter.wrap((ResultSet) result, event);
+		}
+		event.rows = rowsOf(result);
+		event.commit();
+		return result;
+	}
+
+	/* setXxx(parameterIndex, value, ...) and clearParameters */
+	private void trackBinds(String name, Object[] args) {
+		if (name.equals("clearParameters")) {
+			Arrays.fill(binds, 0, bindCount, null);
+			bindCount = 0;
+		} else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+			int index = (Integer) args[0];
+			if (index < 1) {
+				return;
+			}
+			if (index > binds.length) {
+				binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+			}
+			binds[index - 1] = name.equals("setNull") ? null : args[1];
+			bindCount = Math.max(bindCount, index);
+		}
+	}
+
+	private Object invokePhysical(Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(physical, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static long rowsOf(Object result) {
+		if (result instanceof Integer || result instanceof Long) {
+			return ((Number) result).longValue();
+		}
+		long rows = 0;
+		if (result instanceof int[]) {
+			for (int count : (int[]) result) {
+				rows += Math.max(count, 0);
+			}
+		} else if (result instanceof long[]) {
+			for (long count : (long[]) result) {
+				rows += Math.max(count, 0);
+			}
+		}
+		return rows;
+	}
+
+	/* counts next() == true and commits the query's event on close */
+	private static class RowCounter implements InvocationHandler {
+		private final ResultSet physical;
+		private final StatementEvent event;
+		private boolean committed = false;
+
+		private RowCounter(ResultSet physical, StatementEvent event) {
+			this.physical = physical;
+			this.event = event;
+		}
+
+		static ResultSet wrap(ResultSet physical, StatementEvent event) {
+			return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+					new Class<?>[] { ResultSet.class }, new RowCounter(physical, event));
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result;
+			try {
+				result = method.invoke(physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			switch (method.getName()) {
+			case "next":
+				if ((Boolean) result) {
+					event.rows++;
+				}
+				break;
+			case "close":
+				if (!committed) {
+					committed = true;
+					event.commit();
+				}
+				break;
+			default:
+				break;
+			}
+			return result;
+		}
+	}
+}
@@ -1,17 +1,16 @@
 package gui;
 
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 
-import db.DbException;
-import gui.listeners.DataChangeListener;
+import gui.listeners.DataChangeBus;
+import gui.listeners.DataChangeEvent;
 import gui.util.Alerts;
 import gui.util.Constraints;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -19,6 +18,7 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import model.entities.Department;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
@@ -29,8 +29,6 @@ public class DepartmentFormController implements Initializable {
 
 	private DepartmentService service;
 	
-	private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
-
 	@FXML
 	private TextField txtId;
 
@@ -56,22 +54,23 @@ public class DepartmentFormController implements Initializable {
 		}
 		try {
 		entity = getFormDepartment();
-		service.saveOrUpdate(entity);
-		notifyDataChangeListener();
-		Utils.currentStage(event).close();
-		}catch ( ValidationException e) {
+		DataChangeEvent.Type type = entity.getId() == null ? DataChangeEvent.Type.CREATED : DataChangeEvent.Type.UPDATED;
+		Stage stage = Utils.currentStage(event);
+		btSave.setDisable(true);
+		service.saveOrUpdateAsync(entity).whenCompleteAsync((v, error) -> {
+			btSave.setDisable(false);
+			if (error != null) {
+				Alerts.showAlert("Error saving Object", "DBException", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			DataChangeBus.publish(new DataChangeEvent<>(type, entity));
+			stage.close();
+		}, Platform::runLater);
+		} catch ( ValidationException e) {
 			setErrorMenssages(e.getErrors());
-		}catch (DbException e) {
-			Alerts.showAlert("Error saving Object", "DBException", e.getMessage(), AlertType.ERROR);
 		}
 	}
 
-	private void notifyDataChangeListener() {
-			for(DataChangeListener listener: dataChangeListeners) {
-				listener.onDataChanged();
-			}
-	}
-
 	private Department getFormDepartment() {
 		Department dep = new Department();
 		
@@ -112,10 +111,6 @@ public class DepartmentFormController implements Initializable {
 		this.service = service;
 	}
 	
-	public void subscribeDataChangeListener(DataChangeListener listener) {
-		dataChangeListeners.add(listener); 
-	}
-
 	public void updateFormData() {
 		if (entity == null) {
 			throw new IllegalStateException("entity ad null");
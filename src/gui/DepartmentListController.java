@@ -2,16 +2,18 @@ package gui;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
 import application.Main;
 import db.DBIntegrityExeption;
-import db.DbException;
+import gui.listeners.DataChangeBus;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.TableRefreshEvent;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -23,6 +25,8 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -33,7 +37,7 @@ import javafx.stage.Stage;
 import model.entities.Department;
 import model.services.DepartmentService;
 
-public class DepartmentListController implements Initializable, DataChangeListener{
+public class DepartmentListController implements Initializable, DataChangeListener<Department>{
 	
 	private DepartmentService service;
 	
@@ -55,6 +59,9 @@ public class DepartmentListController implements Initializable, DataChangeListen
 	@FXML
 	private Button btNew;
 	
+	@FXML
+	private ProgressIndicator progressLoading;
+	
 	@FXML
 	public void onButtonNewAction(ActionEvent event) {
 		Stage parentStage = Utils.currentStage(event);
@@ -62,18 +69,40 @@ public class DepartmentListController implements Initializable, DataChangeListen
 		createDialogForm(obj,"/gui/DepartmentForm.fxml", parentStage);
 	}
 	
-	private ObservableList<Department> obsList;
+	private ObservableList<Department> obsList = FXCollections.observableArrayList();
+	
+	private int loadGeneration = 0;
 	
 	public void updateTableView() {
 		if  (service == null) {
 			throw new IllegalStateException("service was null");
 		}
-		List<Department> list = service.findAll();
-		
-		obsList = FXCollections.observableArrayList(list);
-		tableViewDepartments.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		int generation = ++loadGeneration;
+		TableRefreshEvent refresh = new TableRefreshEvent();
+		refresh.begin();
+		setLoading(true);
+		service.findAllAsync().whenCompleteAsync((list, error) -> {
+			refresh.table = "department";
+			if (generation != loadGeneration) {
+				refresh.commit();
+				return;
+			}
+			setLoading(false);
+			if (error != null) {
+				refresh.commit();
+				Alerts.showAlert("Error loading departments", "DBException", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			obsList.setAll(list);
+			refresh.rows = list.size();
+			refresh.succeeded = true;
+			refresh.commit();
+		}, Platform::runLater);
+	}
+	
+	private void setLoading(boolean loading) {
+		progressLoading.setVisible(loading);
+		tableViewDepartments.setPlaceholder(new Label(loading ? "Loading..." : "No content in table"));
 	}
 	
 	@Override
@@ -87,6 +116,12 @@ public class DepartmentListController implements Initializable, DataChangeListen
 		
 		Stage stage = (Stage) Main.getScene().getWindow();
 		tableViewDepartments.prefHeightProperty().bind(stage.heightProperty());
+		
+		tableViewDepartments.setItems(obsList);
+		initEditButtons();
+		initRemoveButtons();
+		
+		DataChangeBus.subscribe(Department.class, this);
 	}
 	
 	public void setDepartmentService(DepartmentService service) {
@@ -96,12 +131,11 @@ public class DepartmentListController implements Initializable, DataChangeListen
 	public void createDialogForm(Department obj, String absoluteName,Stage parentStage) {
 			try {
 				FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-				Pane pane = loader.load();
+				Pane pane = Utils.loadFxml(loader, absoluteName);
 				
 				DepartmentFormController controller = loader.getController();
 				controller.setDepartment(obj);
 				controller.setDepartmentService(new DepartmentService());
-				controller.subscribeDataChangeListener(this);
 				controller.updateFormData();
 				
 				Stage dialogStage = new Stage();
@@ -121,8 +155,42 @@ public class DepartmentListController implements Initializable, DataChangeListen
 	}
 
 	@Override
-	public void onDataChanged() {
-		updateTableView();
+	public void onDataChanged(DataChangeEvent<Department> event) {
+		// a bulk event carries no entity
+		if (event.getType() == DataChangeEvent.Type.BULK) {
+			updateTableView();
+			return;
+		}
+		Department obj = event.getEntity();
+		int index = indexOf(obj.getId());
+		switch (event.getType()) {
+		case CREATED:
+			if (index < 0) {
+				obsList.add(obj);
+			}
+			break;
+		case UPDATED:
+			if (index >= 0) {
+				obsList.set(index, obj);
+			}
+			break;
+		case DELETED:
+			if (index >= 0) {
+				obsList.remove(index);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+	
+	private int indexOf(Integer id) {
+		for (int i = 0; i < obsList.size(); i++) {
+			if (obsList.get(i).getId().equals(id)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 	 
 	private void initEditButtons() { 
@@ -174,14 +242,18 @@ public class DepartmentListController implements Initializable, DataChangeListen
 			if ( service == null) {
 				throw new IllegalStateException("Service was null");
 			}
-			try {
-				service.remove(obj);
-				updateTableView();
-			}catch (DBIntegrityExeption e) {
-				Alerts.showAlert("Error removing alert", null, e.getMessage(), AlertType.ERROR);
-			}catch ( DbException e) {
-				Alerts.showAlert("Error removing alert", "Department cannot be removed", e.getMessage(), AlertType.ERROR);
-			}
+			service.removeAsync(obj).whenCompleteAsync((v, error) -> {
+				if (error == null) {
+					DataChangeBus.publish(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, obj));
+					return;
+				}
+				Throwable cause = Utils.unwrap(error);
+				if (cause instanceof DBIntegrityExeption) {
+					Alerts.showAlert("Error removing alert", null, cause.getMessage(), AlertType.ERROR);
+				} else {
+					Alerts.showAlert("Error removing alert", "Department cannot be removed", cause.getMessage(), AlertType.ERROR);
+				}
+			}, Platform::runLater);
 		}
 	} 
 }
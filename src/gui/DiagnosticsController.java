@@ -0,0 +1,285 @@
+package gui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ResourceBundle;
+import java.util.function.ToDoubleFunction;
+
+import application.Main;
+import db.ConnectionPool;
+import db.DB;
+import db.SlowQueryLog;
+import gui.util.Alerts;
+import gui.util.Utils;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.dao.DaoFactory;
+import model.services.ServiceExecutor;
+
+public class DiagnosticsController implements Initializable {
+
+	private static final double REFRESH_SECONDS = 1.0;
+
+	@FXML
+	private Button btReset;
+
+	@FXML
+	private Button btExport;
+
+	@FXML
+	private Button btSlowQueryReport;
+
+	@FXML
+	private Label lbPool;
+
+	@FXML
+	private TableView<OperationMetrics.Snapshot> tableViewMetrics;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, String> tableColumnName;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Long> tableColumnCount;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Long> tableColumnErrors;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Long> tableColumnRows;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Double> tableColumnMean;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Double> tableColumnP50;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Double> tableColumnP99;
+
+	@FXML
+	private TableColumn<OperationMetrics.Snapshot, Double> tableColumnMax;
+
+	@FXML
+	private Label lbSlowQueries;
+
+	@FXML
+	private TableView<SlowQueryLog.Shape> tableViewSlowQueries;
+
+	@FXML
+	private TableColumn<SlowQueryLog.Shape, String> tableColumnSql;
+
+	@FXML
+	private TableColumn<SlowQueryLog.Shape, Long> tableColumnSlowCount;
+
+	@FXML
+	private TableColumn<SlowQueryLog.Shape, Double> tableColumnSlowTotal;
+
+	@FXML
+	private TableColumn<SlowQueryLog.Shape, Double> tableColumnSlowMax;
+
+	@FXML
+	private TableColumn<SlowQueryLog.Shape, String> tableColumnFullScan;
+
+	@FXML
+	private TextArea txtSlowQuery;
+
+	private ObservableList<OperationMetrics.Snapshot> obsList = FXCollections.observableArrayList();
+
+	private ObservableList<SlowQueryLog.Shape> slowQueryList = FXCollections.observableArrayList();
+
+	private Timeline refresh;
+
+	@FXML
+	public void onBtResetAction() {
+		MetricsRegistry.reset();
+		SlowQueryLog slowQueries = getSlowQueryLog();
+		if (slowQueries != null) {
+			slowQueries.reset();
+		}
+		updateMetrics();
+	}
+
+	@FXML
+	public void onBtExportAction() {
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Export metrics");
+		chooser.setInitialFileName("metrics.csv");
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+		File file = chooser.showSaveDialog(Main.getScene().getWindow());
+		if (file == null) {
+			return;
+		}
+		ServiceExecutor.supplyAsync("service.metrics.export", () -> {
+			try {
+				return MetricsRegistry.export(file.toPath());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).whenCompleteAsync((count, error) -> {
+			if (error != null) {
+				Alerts.showAlert("Error exporting metrics", "Export failed", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+			} else {
+				Alerts.showAlert("Export finished", null, count + " operations written to " + file, AlertType.INFORMATION);
+			}
+		}, Platform::runLater);
+	}
+
+	@FXML
+	public void onBtSlowQueryReportAction() {
+		SlowQueryLog slowQueries = getSlowQueryLog();
+		if (slowQueries == null) {
+			return;
+		}
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Slow query report");
+		chooser.setInitialFileName("slow-queries.txt");
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text", "*.txt"));
+		File file = chooser.showSaveDialog(Main.getScene().getWindow());
+		if (file == null) {
+			return;
+		}
+		ServiceExecutor.supplyAsync("service.slowQueries.report", () -> {
+			try {
+				return slowQueries.writeReport(file.toPath());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).whenCompleteAsync((count, error) -> {
+			if (error != null) {
+				Alerts.showAlert("Error writing report", "Report failed", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+			} else {
+				Alerts.showAlert("Report finished", null, count + " statements written to " + file, AlertType.INFORMATION);
+			}
+		}, Platform::runLater);
+	}
+
+	/* refreshes every second until the view is replaced by another one */
+	public void startLiveUpdates() {
+		updateMetrics();
+		refresh = new Timeline(new KeyFrame(Duration.seconds(REFRESH_SECONDS), e -> {
+			if (tableViewMetrics.getScene() == null) {
+				refresh.stop();
+				return;
+			}
+			updateMetrics();
+		}));
+		refresh.setCycleCount(Timeline.INDEFINITE);
+		refresh.play();
+	}
+
+	public void updateMetrics() {
+		obsList.setAll(MetricsRegistry.snapshot());
+
+		StringBuilder status = new StringBuilder();
+		if (!DaoFactory.isInMemory()) {
+			ConnectionPool pool = DB.getPool();
+			long hits = pool.getStatementCacheHits();
+			long total = hits + pool.getStatementCacheMisses();
+			status.append(String.format("Pool: %d active, %d idle, max %d; statement cache %.0f%% hits; ",
+					pool.getActiveCount(), pool.getIdleCount(), pool.getMaxSize(),
+					total == 0 ? 0.0 : 100.0 * hits / total));
+		}
+		status.append(String.format("department cache %.0f%% hits",
+				100.0 * DaoFactory.getDepartmentCache().getHitRate()));
+		lbPool.setText(status.toString());
+
+		updateSlowQueries();
+	}
+
+	private void updateSlowQueries() {
+		SlowQueryLog slowQueries = getSlowQueryLog();
+		btSlowQueryReport.setDisable(slowQueries == null);
+		if (slowQueries == null) {
+			lbSlowQueries.setText("Slow queries: the log is off (slowQuery.thresholdMs in db.properties)");
+			slowQueryList.clear();
+			return;
+		}
+		lbSlowQueries.setText("Slow queries: over " + slowQueries.getThresholdMillis() + " ms, by total time");
+		SlowQueryLog.Shape selected = tableViewSlowQueries.getSelectionModel().getSelectedItem();
+		slowQueryList.setAll(slowQueries.getShapes());
+		if (selected != null && slowQueryList.contains(selected)) {
+			tableViewSlowQueries.getSelectionModel().select(selected);
+		}
+		showSlowQuery(tableViewSlowQueries.getSelectionModel().getSelectedItem());
+	}
+
+	/* the plan arrives after the first slow execution, so this runs on every refresh */
+	private void showSlowQuery(SlowQueryLog.Shape shape) {
+		if (shape == null) {
+			txtSlowQuery.clear();
+			return;
+		}
+		StringBuilder text = new StringBuilder(shape.getSql());
+		text.append("\nLast binds: ").append(shape.getLastBinds());
+		if (shape.getPlan() != null) {
+			text.append("\nPlan:\n").append(shape.getPlan());
+		}
+		if (!text.toString().equals(txtSlowQuery.getText())) {
+			txtSlowQuery.setText(text.toString());
+		}
+	}
+
+	/* null in memory mode or when slowQuery.thresholdMs is 0 */
+	private static SlowQueryLog getSlowQueryLog() {
+		if (DaoFactory.isInMemory()) {
+			return null;
+		}
+		SlowQueryLog slowQueries = DB.getPool().getSlowQueryLog();
+		return slowQueries.isEnabled() ? slowQueries : null;
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		initializeNodes();
+	}
+
+	private void initializeNodes() {
+		tableColumnName.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getName()));
+		tableColumnCount.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getCount()));
+		tableColumnErrors.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getErrors()));
+		tableColumnRows.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getRows()));
+		millisColumn(tableColumnMean, OperationMetrics.Snapshot::getMean);
+		millisColumn(tableColumnP50, OperationMetrics.Snapshot::getP50);
+		millisColumn(tableColumnP99, OperationMetrics.Snapshot::getP99);
+		millisColumn(tableColumnMax, OperationMetrics.Snapshot::getMax);
+		tableViewMetrics.setItems(obsList);
+
+		tableColumnSql.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getSql()));
+		tableColumnSlowCount.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getCount()));
+		tableColumnSlowTotal.setCellValueFactory(
+				cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getTotalNanos() / 1e6));
+		Utils.formatTableColumnDouble(tableColumnSlowTotal, 1);
+		tableColumnSlowMax.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getMaxNanos() / 1e6));
+		Utils.formatTableColumnDouble(tableColumnSlowMax, 1);
+		tableColumnFullScan.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+				cell.getValue().getPlan() == null ? "" : cell.getValue().isFullScan() ? "yes" : "no"));
+		tableViewSlowQueries.setItems(slowQueryList);
+		tableViewSlowQueries.getSelectionModel().selectedItemProperty()
+				.addListener((obs, oldValue, newValue) -> showSlowQuery(newValue));
+	}
+
+	/* the snapshot holds nanoseconds */
+	private static void millisColumn(TableColumn<OperationMetrics.Snapshot, Double> column,
+			ToDoubleFunction<OperationMetrics.Snapshot> nanos) {
+		column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(nanos.applyAsDouble(cell.getValue()) / 1e6));
+		Utils.formatTableColumnDouble(column, 3);
+	}
+}
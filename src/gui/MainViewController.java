@@ -1,12 +1,16 @@
 package gui;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import application.Main;
 import gui.util.Alerts;
+import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -15,8 +19,15 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
 import model.services.DepartmentService;
+import model.services.ExportService;
+import model.services.ReportService;
+import model.services.SellerImportService;
 import model.services.SellerService;
 
 public class MainViewController implements Initializable{
@@ -30,6 +41,34 @@ public class MainViewController implements Initializable{
 	@FXML
 	private MenuItem menuItemAbout;
 	
+	@FXML
+	private MenuItem menuItemImportSellers;
+	
+	@FXML
+	private MenuItem menuItemExportSellers;
+	
+	@FXML
+	private MenuItem menuItemExportDepartments;
+	
+	@FXML
+	private MenuItem menuItemSalaryDashboard;
+	
+	@FXML
+	private MenuItem menuItemDiagnostics;
+	
+	@FXML
+	private void onMenuItemSalaryDashboardAction() {
+		loadView("/gui/SalaryDashboard.fxml", (SalaryDashboardController controller) -> {
+			controller.setReportService(new ReportService());
+			controller.updateReport();
+		});
+	}
+	
+	@FXML
+	private void onMenuItemDiagnosticsAction() {
+		loadView("/gui/Diagnostics.fxml", (DiagnosticsController controller) -> controller.startLiveUpdates());
+	}
+	
 	@FXML
 	private void onMenuItemAboutAction() {
 		loadView("/gui/About.fxml", x -> {});
@@ -51,10 +90,83 @@ public class MainViewController implements Initializable{
 		});
 	}
 	
+	@FXML
+	private void onMenuItemImportSellersAction() {
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Import sellers");
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+		File file = chooser.showOpenDialog(Main.getScene().getWindow());
+		if (file == null) {
+			return;
+		}
+		loadDialog("/gui/SellerImport.fxml", "Import sellers", (SellerImportController controller) -> {
+			controller.setSellerImportService(new SellerImportService());
+			controller.startImport(file);
+		});
+	}
+	
+	@FXML
+	private void onMenuItemExportSellersAction() {
+		File file = chooseExportFile("Export sellers", "sellers.csv");
+		if (file != null) {
+			runExport(new ExportService().exportSellersAsync(file.toPath()), "sellers", file);
+		}
+	}
+	
+	@FXML
+	private void onMenuItemExportDepartmentsAction() {
+		File file = chooseExportFile("Export departments", "departments.csv");
+		if (file != null) {
+			runExport(new ExportService().exportDepartmentsAsync(file.toPath()), "departments", file);
+		}
+	}
+	
+	private File chooseExportFile(String title, String initialFileName) {
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle(title);
+		chooser.setInitialFileName(initialFileName);
+		chooser.getExtensionFilters().addAll(
+				new FileChooser.ExtensionFilter("CSV", "*.csv"),
+				new FileChooser.ExtensionFilter("CSV (gzip)", "*.csv.gz"),
+				new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+				new FileChooser.ExtensionFilter("JSON Lines (gzip)", "*.jsonl.gz"));
+		return chooser.showSaveDialog(Main.getScene().getWindow());
+	}
+	
+	private void runExport(CompletableFuture<Long> export, String what, File file) {
+		export.whenCompleteAsync((rows, error) -> {
+			if (error != null) {
+				Alerts.showAlert("Error exporting " + what, "Export failed", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+			} else {
+				Alerts.showAlert("Export finished", null, rows + " " + what + " written to " + file, AlertType.INFORMATION);
+			}
+		}, Platform::runLater);
+	}
+	
+	private <T> void loadDialog(String absoluteName, String title, Consumer<T> initializeController) {
+		try {
+			FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
+			Pane pane = Utils.loadFxml(loader, absoluteName);
+			
+			initializeController.accept(loader.getController());
+			
+			Stage dialogStage = new Stage();
+			dialogStage.setTitle(title);
+			dialogStage.setScene(new Scene(pane));
+			dialogStage.setResizable(false);
+			dialogStage.initOwner(Main.getScene().getWindow());
+			dialogStage.initModality(Modality.WINDOW_MODAL);
+			dialogStage.showAndWait();
+		} catch (IOException e) {
+			Alerts.showAlert("Error Load View", "IO Exception", e.getMessage(), AlertType.ERROR);
+			e.printStackTrace();
+		}
+	}
+	
 	private synchronized <T> void loadView(String absoluteName, Consumer<T> initializeController) {
 		try {
 		FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-		VBox newVBox = loader.load();
+		VBox newVBox = Utils.loadFxml(loader, absoluteName);
 		
 		replaceMainView(newVBox);
 		
@@ -0,0 +1,158 @@
+package gui;
+
+import java.net.URL;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import gui.listeners.DataChangeBus;
+import gui.listeners.DataChangeEvent;
+import gui.listeners.DataChangeListener;
+import gui.util.Alerts;
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.StackedBarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import model.entities.Department;
+import model.entities.DepartmentSalaryStats;
+import model.entities.Seller;
+import model.services.ReportService;
+
+public class SalaryDashboardController implements Initializable {
+
+	private ReportService service;
+
+	@FXML
+	private Button btRefresh;
+
+	@FXML
+	private ProgressIndicator progressLoading;
+
+	@FXML
+	private Label lbStatus;
+
+	@FXML
+	private BarChart<String, Number> chartAverageSalary;
+
+	@FXML
+	private StackedBarChart<String, Number> chartAgeBands;
+
+	@FXML
+	private TableView<DepartmentSalaryStats> tableViewStats;
+
+	@FXML
+	private TableColumn<DepartmentSalaryStats, String> tableColumnDepartment;
+
+	@FXML
+	private TableColumn<DepartmentSalaryStats, Integer> tableColumnHeadcount;
+
+	@FXML
+	private TableColumn<DepartmentSalaryStats, Double> tableColumnTotal;
+
+	@FXML
+	private TableColumn<DepartmentSalaryStats, Double> tableColumnAverage;
+
+	@FXML
+	private TableColumn<DepartmentSalaryStats, Double> tableColumnMin;
+
+	@FXML
+	private TableColumn<DepartmentSalaryStats, Double> tableColumnMax;
+
+	private ObservableList<DepartmentSalaryStats> obsList = FXCollections.observableArrayList();
+
+	private int loadGeneration = 0;
+
+	/* held here because the bus only keeps weak references */
+	private final DataChangeListener<Seller> sellerListener = event -> updateReport();
+
+	private final DataChangeListener<Department> departmentListener = event -> updateReport();
+
+	@FXML
+	public void onBtRefreshAction() {
+		updateReport();
+	}
+
+	public void setReportService(ReportService service) {
+		this.service = service;
+	}
+
+	/* served from the report cache unless sellers or departments changed since the last query */
+	public void updateReport() {
+		if (service == null) {
+			throw new IllegalStateException("service was null");
+		}
+		int generation = ++loadGeneration;
+		progressLoading.setVisible(true);
+		service.getSalaryStatsAsync().whenCompleteAsync((stats, error) -> {
+			if (generation != loadGeneration) {
+				return;
+			}
+			progressLoading.setVisible(false);
+			if (error != null) {
+				Alerts.showAlert("Error loading report", "DBException", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			show(stats);
+		}, Platform::runLater);
+	}
+
+	private void show(List<DepartmentSalaryStats> stats) {
+		obsList.setAll(stats);
+
+		XYChart.Series<String, Number> averages = new XYChart.Series<>();
+		for (DepartmentSalaryStats dep : stats) {
+			averages.getData().add(new XYChart.Data<>(dep.getDepartmentName(), dep.getAverage()));
+		}
+		chartAverageSalary.getData().setAll(List.of(averages));
+
+		List<XYChart.Series<String, Number>> bands = FXCollections.observableArrayList();
+		for (int band = 0; band < ReportService.AGE_BANDS.length; band++) {
+			XYChart.Series<String, Number> series = new XYChart.Series<>();
+			series.setName(ReportService.AGE_BANDS[band]);
+			for (DepartmentSalaryStats dep : stats) {
+				series.getData().add(new XYChart.Data<>(dep.getDepartmentName(), dep.getAgeBandCount(band)));
+			}
+			bands.add(series);
+		}
+		chartAgeBands.getData().setAll(bands);
+
+		int headcount = 0;
+		for (DepartmentSalaryStats dep : stats) {
+			headcount += dep.getHeadcount();
+		}
+		lbStatus.setText(stats.size() + " departments, " + headcount + " sellers");
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+		initializeNodes();
+	}
+
+	private void initializeNodes() {
+		tableColumnDepartment.setCellValueFactory(new PropertyValueFactory<>("departmentName"));
+		tableColumnHeadcount.setCellValueFactory(new PropertyValueFactory<>("headcount"));
+		tableColumnTotal.setCellValueFactory(new PropertyValueFactory<>("total"));
+		Utils.formatTableColumnDouble(tableColumnTotal, 2);
+		tableColumnAverage.setCellValueFactory(new PropertyValueFactory<>("average"));
+		Utils.formatTableColumnDouble(tableColumnAverage, 2);
+		tableColumnMin.setCellValueFactory(new PropertyValueFactory<>("min"));
+		Utils.formatTableColumnDouble(tableColumnMin, 2);
+		tableColumnMax.setCellValueFactory(new PropertyValueFactory<>("max"));
+		Utils.formatTableColumnDouble(tableColumnMax, 2);
+		tableViewStats.setItems(obsList);
+
+		DataChangeBus.subscribe(Seller.class, sellerListener);
+		DataChangeBus.subscribe(Department.class, departmentListener);
+	}
+}
@@ -1,20 +1,17 @@
 package gui;
 
 import java.net.URL;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 
-import db.DbException;
-import gui.listeners.DataChangeListener;
+import gui.listeners.DataChangeBus;
+import gui.listeners.DataChangeEvent;
 import gui.util.Alerts;
 import gui.util.Utils;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -28,12 +25,14 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
+import javafx.stage.Stage;
 import javafx.util.Callback;
 import model.entities.Department;
 import model.entities.Seller;
 import model.exceptions.ValidationException;
 import model.services.DepartmentService;
 import model.services.SellerService;
+import model.services.SellerValidator;
 
 public class SellerFormController implements Initializable {
 
@@ -43,8 +42,6 @@ public class SellerFormController implements Initializable {
 
 	private DepartmentService depService;
 
-	private List<DataChangeListener> dataChangeListeners = new ArrayList<>();
-
 	@FXML
 	private TextField txtId;
 
@@ -96,21 +93,22 @@ public class SellerFormController implements Initializable {
 		}
 		try {
 		entity = getFormData();
-		service.saveOrUpdate(entity);
-		notifyDataChangeListener();
-		Utils.currentStage(event).close();
+		DataChangeEvent.Type type = entity.getId() == null ? DataChangeEvent.Type.CREATED : DataChangeEvent.Type.UPDATED;
+		Stage stage = Utils.currentStage(event);
+		btSave.setDisable(true);
+		service.saveOrUpdateAsync(entity).whenCompleteAsync((v, error) -> {
+			btSave.setDisable(false);
+			if (error != null) {
+				Alerts.showAlert("Error saving Object", "DBException", Utils.unwrap(error).getMessage(), AlertType.ERROR);
+				return;
+			}
+			DataChangeBus.publish(new DataChangeEvent<>(type, entity));
+			stage.close();
+		}, Platform::runLater);
 		} catch ( ValidationException e) {
 			setErrorMenssage(e.getErrors());
-		}catch (DbException e) {
-			Alerts.showAlert("Error saving Object", "DBException", e.getMessage(), AlertType.ERROR);
 		}
 	}
-	private void notifyDataChangeListener() {
-		for(DataChangeListener listener: dataChangeListeners) {
-			listener.onDataChanged();
-		}
-}
-
 	@FXML
 	public void onBtCancelAction(ActionEvent event) {
 		Utils.currentStage(event).close();
@@ -157,48 +155,8 @@ public class SellerFormController implements Initializable {
 	}
 	
 	private Seller getFormData() {
-		Seller obj = new Seller();
-		ValidationException exception = new ValidationException("Validation Error");
-		
-		obj.setId(Utils.tryParseToInt(txtId.getText()));
-		
-		if ( txtName.getText() == null || txtName.getText().trim().equals("")) {
-			exception.addError("Name", "Name can't be empity");
-		}
-		obj.setName(txtName.getText());
-		
-		if ( txtEmail.getText() == null || txtEmail.getText().trim().equals("")) {
-			exception.addError("Email", "Email can't be empity");
-		}
-		obj.setEmail(txtEmail.getText());
-		
-		if ( txtSalary.getText() == null || txtSalary.getText().trim().equals("")) {
-			exception.addError("Salary", "Salary can't be empity");
-		}else {
-		obj.setBaseSalary(Utils.tryParseToDouble(txtSalary.getText()));
-		}
-		if (dpBirthDate.getValue() == null) {
-			exception.addError("Date", "Date can't be empity");
-		}else{
-		Instant instant = Instant.from(dpBirthDate.getValue().atStartOfDay(ZoneId.systemDefault()));
-		obj.setBirthDate(Date.from(instant));
-		}
-		
-		if (comboBoxDepartments.getValue() == null) {
-			exception.addError("Department", "Department can't be empity");
-		} else {
-		obj.setDepartment(comboBoxDepartments.getValue());
-		}
-		
-		if (exception.getErrors().size() > 0 ) {
-			throw exception;
-		}
-		
-		return obj;
-	}
-
-	public void subscribeDataChangeListener(SellerListController sellerListController) {
-		dataChangeListeners.add(sellerListController);
+		return SellerValidator.validate(Utils.tryParseToInt(txtId.getText()), txtName.getText(), txtEmail.getText(),
+				txtSalary.getText(), dpBirthDate.getValue(), comboBoxDepartments.getValue());
 	}
 
 	@Override
@@ -0,0 +1,97 @@
+package gui;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import gui.listeners.DataChangeBus;
+import gui.listeners.DataChangeEvent;
+import gui.util.Alerts;
+import gui.util.Utils;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import model.entities.Seller;
+import model.services.SellerImportService;
+
+public class SellerImportController implements Initializable {
+
+	private SellerImportService service;
+
+	private volatile double latestProgress = 0.0;
+
+	private final AtomicBoolean progressUpdateScheduled = new AtomicBoolean(false);
+
+	@FXML
+	private Label lbFile;
+
+	@FXML
+	private ProgressBar progressImport;
+
+	@FXML
+	private Label lbStatus;
+
+	@FXML
+	private Button btClose;
+
+	@FXML
+	public void onBtCloseAction(ActionEvent event) {
+		Utils.currentStage(event).close();
+	}
+
+	public void setSellerImportService(SellerImportService service) {
+		this.service = service;
+	}
+
+	public void startImport(File file) {
+		if (service == null) {
+			throw new IllegalStateException("service was null");
+		}
+		Path source = file.toPath();
+		Path rejects = source.resolveSibling(file.getName() + ".rejected.csv");
+
+		lbFile.setText(file.getName());
+		lbStatus.setText("Importing...");
+		btClose.setDisable(true);
+
+		service.importCsvAsync(source, rejects, this::onProgress).whenCompleteAsync((result, error) -> {
+			btClose.setDisable(false);
+			// chunks already written stay committed even when the import fails
+			DataChangeBus.publish(DataChangeEvent.bulk(Seller.class));
+			if (error != null) {
+				lbStatus.setText("Import failed");
+				Alerts.showAlert("Error importing sellers", "Import failed", Utils.unwrap(error).getMessage(),
+						AlertType.ERROR);
+				return;
+			}
+			progressImport.setProgress(1.0);
+			String status = result.toString();
+			if (result.getRowsRejected() > 0) {
+				status += "\nRejected rows written to " + result.getRejectsFile();
+			}
+			lbStatus.setText(status);
+		}, Platform::runLater);
+	}
+
+	/* Called from the import thread; coalesces updates so at most one is queued on the FX thread. */
+	private void onProgress(double progress) {
+		latestProgress = progress;
+		if (progressUpdateScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				progressUpdateScheduled.set(false);
+				progressImport.setProgress(latestProgress);
+			});
+		}
+	}
+
+	@Override
+	public void initialize(URL url, ResourceBundle rb) {
+	}
+}
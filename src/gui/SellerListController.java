@@ -2,42 +2,77 @@ package gui;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 import application.Main;
 import db.DBIntegrityExeption;
+import gui.listeners.DataChangeBus;
+import gui.listeners.DataChangeEvent;
 import gui.listeners.DataChangeListener;
 import gui.util.Alerts;
+import gui.util.Constraints;
+import gui.util.PagedTableLoader;
+import gui.util.TableRefreshEvent;
 import gui.util.Utils;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.geometry.Side;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.SortType;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.Pane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import model.dao.SellerFilter;
+import model.dao.SellerSort;
+import model.entities.Department;
 import model.entities.Seller;
 import model.services.DepartmentService;
+import model.services.SellerSearchIndex;
 import model.services.SellerService;
 
-public class SellerListController implements Initializable, DataChangeListener{
+public class SellerListController implements Initializable, DataChangeListener<Seller>{
+	
+	private static final int PAGE_SIZE = 200;
+	
+	private static final int MAX_ROWS = 1000;
+	
+	private static final int SEARCH_DELAY_MS = 250;
+	
+	private static final int SUGGESTION_COUNT = 10;
 	
 	private SellerService service;
 	
+	private DepartmentService departmentService = new DepartmentService();
+	
 	@FXML
 	private TableView<Seller> tableViewSellers;
 	
@@ -62,9 +97,15 @@ public class SellerListController implements Initializable, DataChangeListener{
 	@FXML
 	private TableColumn<Seller, String> tableColumnName;
 	
+	@FXML
+	private TableColumn<Seller, String> tableColumnDepartment;
+	
 	@FXML
 	private Button btNew;
 	
+	@FXML
+	private ProgressIndicator progressLoading;
+	
 	@FXML
 	public void onButtonNewAction(ActionEvent event) {
 		Stage parentStage = Utils.currentStage(event);
@@ -72,18 +113,187 @@ public class SellerListController implements Initializable, DataChangeListener{
 		createDialogForm(obj,"/gui/SellerForm.fxml", parentStage);
 	}
 	
-	private ObservableList<Seller> obsList;
+	@FXML
+	private Label lbStatus;
+	
+	@FXML
+	private TextField txtSearch;
+	
+	@FXML
+	private ComboBox<Department> comboBoxDepartment;
+	
+	@FXML
+	private TextField txtMinSalary;
+	
+	@FXML
+	private TextField txtMaxSalary;
+	
+	@FXML
+	private Button btClearFilter;
+	
+	@FXML
+	public void onBtClearFilterAction() {
+		txtSearch.clear();
+		comboBoxDepartment.setValue(null);
+		txtMinSalary.clear();
+		txtMaxSalary.clear();
+		applyFilter();
+	}
+	
+	private SellerFilter filter = new SellerFilter();
+	
+	private SellerSort sort = SellerSort.DEFAULT;
+	
+	private final Map<TableColumn<Seller, ?>, SellerSort.Column> sortColumns = new HashMap<>();
+	
+	private final PauseTransition searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MS));
+	
+	private CompletableFuture<Integer> countQuery = null;
+	
+	private final ContextMenu suggestions = new ContextMenu();
+	
+	private int suggestGeneration = 0;
+	
+	private PagedTableLoader<Seller> pager;
+	
+	private int countGeneration = 0;
+	
+	private int sellerCount = -1;
+	
+	/* held here because the bus only keeps a weak reference */
+	private final DataChangeListener<Department> departmentListener = this::onDepartmentChanged;
 	
 	public void updateTableView() {
 		if  (service == null) {
 			throw new IllegalStateException("service was null");
 		}
-		List<Seller> list = service.findAll();
+		TableRefreshEvent refresh = new TableRefreshEvent();
+		refresh.begin();
+		pager.reload().whenComplete((page, error) -> {
+			refresh.table = "seller";
+			refresh.rows = page == null ? 0 : page.size();
+			refresh.succeeded = error == null;
+			refresh.commit();
+		});
 		
-		obsList = FXCollections.observableArrayList(list);
-		tableViewSellers.setItems(obsList);
-		initEditButtons();
-		initRemoveButtons();
+		int generation = ++countGeneration;
+		if (countQuery != null) {
+			countQuery.cancel(true);
+		}
+		countQuery = service.countAsync(filter);
+		countQuery.whenCompleteAsync((count, error) -> {
+			if (generation == countGeneration && error == null) {
+				setSellerCount(count);
+			}
+		}, Platform::runLater);
+	}
+	
+	/*
+	 * Text with an @ searches by email prefix, anything else by name prefix.
+	 * Typing restarts the delay, so only the last edit of a burst queries.
+	 */
+	private void applyFilter() {
+		searchDelay.stop();
+		SellerFilter newFilter = new SellerFilter();
+		String text = txtSearch.getText();
+		if (text != null && text.contains("@")) {
+			newFilter.setEmailPrefix(text);
+		} else {
+			newFilter.setNamePrefix(text);
+		}
+		Department dep = comboBoxDepartment.getValue();
+		newFilter.setDepartmentId(dep == null ? null : dep.getId());
+		newFilter.setMinSalary(Utils.tryParseToDouble(txtMinSalary.getText()));
+		newFilter.setMaxSalary(Utils.tryParseToDouble(txtMaxSalary.getText()));
+		filter = newFilter;
+		updateTableView();
+	}
+	
+	/*
+	 * Sorting is done by the database: the policy only translates the first
+	 * column of the sort order into a SellerSort and reloads. TableView also
+	 * calls the policy when rows are added, so nothing happens unless the
+	 * order actually changed. Columns without an indexed counterpart are not
+	 * sortable.
+	 */
+	private void initSortPolicy() {
+		sortColumns.put(tableColumnId, SellerSort.Column.ID);
+		sortColumns.put(tableColumnName, SellerSort.Column.NAME);
+		sortColumns.put(tableColumnEmail, SellerSort.Column.EMAIL);
+		sortColumns.put(tableColumnBirthDate, SellerSort.Column.BIRTH_DATE);
+		sortColumns.put(tableColumnSalary, SellerSort.Column.BASE_SALARY);
+		for (TableColumn<Seller, ?> column : tableViewSellers.getColumns()) {
+			column.setSortable(sortColumns.containsKey(column));
+		}
+		tableViewSellers.setSortPolicy(table -> {
+			SellerSort newSort = SellerSort.DEFAULT;
+			if (!table.getSortOrder().isEmpty()) {
+				TableColumn<Seller, ?> column = table.getSortOrder().get(0);
+				newSort = new SellerSort(sortColumns.get(column), column.getSortType() == SortType.DESCENDING);
+			}
+			if (!newSort.equals(sort)) {
+				sort = newSort;
+				if (service != null) {
+					updateTableView();
+				}
+			}
+			return true;
+		});
+	}
+	
+	/*
+	 * Type-ahead from the in-memory search index: only the few candidate
+	 * sellers are read by id, and the filter query waits for the debounced
+	 * filter. Picking a suggestion fills
+	 * in the full name (or email) and applies the filter at once.
+	 */
+	private void suggest(String text) {
+		int generation = ++suggestGeneration;
+		if (text == null || text.trim().length() < SellerSearchIndex.MIN_QUERY_LENGTH || !txtSearch.isFocused()) {
+			suggestions.hide();
+			return;
+		}
+		boolean byEmail = text.contains("@");
+		service.searchAsync(text, SUGGESTION_COUNT).whenCompleteAsync((matches, error) -> {
+			if (generation != suggestGeneration || error != null) {
+				return;
+			}
+			List<MenuItem> menuItems = new ArrayList<>();
+			for (Seller obj : matches) {
+				String name = obj.getName();
+				String email = obj.getEmail();
+				MenuItem item = new MenuItem(name + " <" + email + ">");
+				item.setOnAction(event -> {
+					txtSearch.setText(byEmail ? email : name);
+					txtSearch.positionCaret(txtSearch.getLength());
+					suggestGeneration++;
+					suggestions.hide();
+					applyFilter();
+				});
+				menuItems.add(item);
+			}
+			suggestions.getItems().setAll(menuItems);
+			if (menuItems.isEmpty()) {
+				suggestions.hide();
+			} else if (!suggestions.isShowing() && txtSearch.isFocused()) {
+				suggestions.show(txtSearch, Side.BOTTOM, 0, 0);
+			}
+		}, Platform::runLater);
+	}
+	
+	private void loadDepartments() {
+		departmentService.findAllAsync().whenCompleteAsync((list, error) -> {
+			if (error == null) {
+				Department selected = comboBoxDepartment.getValue();
+				comboBoxDepartment.getItems().setAll(list);
+				comboBoxDepartment.setValue(selected);
+			}
+		}, Platform::runLater);
+	}
+	
+	private void setSellerCount(int count) {
+		sellerCount = count;
+		lbStatus.setText(count + " sellers");
 	}
 	
 	@Override
@@ -99,10 +309,45 @@ public class SellerListController implements Initializable, DataChangeListener{
 		Utils.formatTableColumnDate(tableColumnBirthDate, "dd/MM/yyyy");
 		tableColumnSalary.setCellValueFactory(new PropertyValueFactory<>("baseSalary"));
 		Utils.formatTableColumnDouble(tableColumnSalary, 2);
+		tableColumnDepartment.setCellValueFactory(
+				param -> new ReadOnlyStringWrapper(param.getValue().getDepartment().getName()));
 		
 		
 		Stage stage = (Stage) Main.getScene().getWindow();
 		tableViewSellers.prefHeightProperty().bind(stage.heightProperty());
+		
+		pager = new PagedTableLoader<>(tableViewSellers,
+				(last, limit) -> service.findPageAsync(filter, sort, last, limit),
+				(first, limit) -> service.findPageBeforeAsync(filter, sort, first, limit),
+				PAGE_SIZE, MAX_ROWS);
+		pager.setOnError(e -> Alerts.showAlert("Error loading sellers", "DBException", e.getMessage(), AlertType.ERROR));
+		progressLoading.visibleProperty().bind(pager.loadingProperty());
+		tableViewSellers.placeholderProperty().bind(Bindings.when(pager.loadingProperty())
+				.<Node>then(new Label("Loading...")).otherwise(new Label("No content in table")));
+		initEditButtons();
+		initRemoveButtons();
+		
+		DataChangeBus.subscribe(Seller.class, this);
+		DataChangeBus.subscribe(Department.class, departmentListener);
+		
+		initSortPolicy();
+		
+		Constraints.setTextFieldDouble(txtMinSalary);
+		Constraints.setTextFieldDouble(txtMaxSalary);
+		searchDelay.setOnFinished(event -> applyFilter());
+		txtSearch.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+		txtMinSalary.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+		txtMaxSalary.textProperty().addListener((obs, oldValue, newValue) -> searchDelay.playFromStart());
+		txtSearch.setOnAction(event -> applyFilter());
+		txtSearch.textProperty().addListener((obs, oldValue, newValue) -> suggest(newValue));
+		txtSearch.focusedProperty().addListener((obs, oldValue, newValue) -> {
+			if (!newValue) {
+				suggestions.hide();
+			}
+		});
+		SellerService.buildSearchIndexAsync();
+		comboBoxDepartment.setOnAction(event -> applyFilter());
+		loadDepartments();
 	}
 	
 	public void setSellerService(SellerService service) {
@@ -112,12 +357,11 @@ public class SellerListController implements Initializable, DataChangeListener{
 	public void createDialogForm(Seller obj, String absoluteName,Stage parentStage) {
 			try {
 				FXMLLoader loader = new FXMLLoader(getClass().getResource(absoluteName));
-				Pane pane = loader.load();
+				Pane pane = Utils.loadFxml(loader, absoluteName);
 				
 				SellerFormController controller = loader.getController();
 				controller.setSeller(obj);
 				controller.setServices(new SellerService(), new DepartmentService());
-				controller.subscribeDataChangeListener(this);
 				controller.loadAssociatedObjects();
 				controller.updateFormData();
 				
@@ -137,9 +381,88 @@ public class SellerListController implements Initializable, DataChangeListener{
 			}
 	}
 	
+	/*
+	 * In the default order (by id) a new seller belongs at the end of the
+	 * table: it is only added when the last page is loaded, otherwise paging
+	 * reaches it. Under any other order its place is unknown until reloaded.
+	 */
 	@Override
-	public void onDataChanged() {
-		updateTableView();
+	public void onDataChanged(DataChangeEvent<Seller> event) {
+		// a bulk event carries no entity
+		if (event.getType() == DataChangeEvent.Type.BULK) {
+			updateTableView();
+			return;
+		}
+		Seller obj = event.getEntity();
+		List<Seller> items = pager.getItems();
+		int index = indexOf(items, obj.getId());
+		switch (event.getType()) {
+		case CREATED:
+			if (!filter.matches(obj)) {
+				break;
+			}
+			if (index < 0 && sort.equals(SellerSort.DEFAULT)) {
+				pager.appendAtEnd(obj);
+			}
+			if (sellerCount >= 0) {
+				setSellerCount(sellerCount + 1);
+			}
+			break;
+		case UPDATED:
+			if (index < 0) {
+				break;
+			}
+			if (filter.matches(obj)) {
+				items.set(index, obj);
+			} else {
+				items.remove(index);
+				if (sellerCount > 0) {
+					setSellerCount(sellerCount - 1);
+				}
+			}
+			break;
+		case DELETED:
+			if (index >= 0) {
+				items.remove(index);
+			}
+			// a seller outside the filter was never part of the count
+			if ((index >= 0 || filter.matches(obj)) && sellerCount > 0) {
+				setSellerCount(sellerCount - 1);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+	
+	/* a renamed department only touches the loaded rows that point to it */
+	private void onDepartmentChanged(DataChangeEvent<Department> event) {
+		loadDepartments();
+		if (event.getType() == DataChangeEvent.Type.BULK) {
+			updateTableView();
+			return;
+		}
+		if (event.getType() != DataChangeEvent.Type.UPDATED) {
+			return;
+		}
+		Department dep = event.getEntity();
+		List<Seller> items = pager.getItems();
+		for (int i = 0; i < items.size(); i++) {
+			Seller obj = items.get(i);
+			if (obj.getDepartment() != null && dep.getId().equals(obj.getDepartment().getId())) {
+				obj.setDepartment(dep);
+				items.set(i, obj);
+			}
+		}
+	}
+	
+	private static int indexOf(List<Seller> items, Integer id) {
+		for (int i = 0; i < items.size(); i++) {
+			if (items.get(i).getId().equals(id)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 	 
 	private void initEditButtons() { 
@@ -191,12 +514,18 @@ public class SellerListController implements Initializable, DataChangeListener{
 			if ( service == null) {
 				throw new IllegalStateException("Service was null");
 			}
-			try {
-				service.remove(obj);
-				updateTableView();
-			}catch (DBIntegrityExeption e) {
-				Alerts.showAlert("Error removing alert", null, e.getMessage(), AlertType.ERROR);
-			}
+			service.removeAsync(obj).whenCompleteAsync((v, error) -> {
+				if (error == null) {
+					DataChangeBus.publish(new DataChangeEvent<>(DataChangeEvent.Type.DELETED, obj));
+					return;
+				}
+				Throwable cause = Utils.unwrap(error);
+				if (cause instanceof DBIntegrityExeption) {
+					Alerts.showAlert("Error removing alert", null, cause.getMessage(), AlertType.ERROR);
+				} else {
+					Alerts.showAlert("Error removing alert", "Seller cannot be removed", cause.getMessage(), AlertType.ERROR);
+				}
+			}, Platform::runLater);
 		}
 	} 
 	
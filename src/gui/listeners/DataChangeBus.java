@@ -0,0 +1,138 @@
+package gui.listeners;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+
+/**
+ * Application-wide bus for entity change events. Events can be published from
+ * any thread; they are queued and delivered on the FX thread in one batch per
+ * pulse, with repeated changes to the same entity merged into one event.
+ *
+ * Listeners are held weakly, so a controller that is no longer shown stops
+ * receiving events once it is collected. The subscriber must keep its own
+ * strong reference to the listener (a controller implementing the interface,
+ * or a listener stored in one of its fields).
+ */
+public class DataChangeBus {
+
+	private static final Map<Class<?>, List<WeakReference<DataChangeListener<?>>>> listeners = new HashMap<>();
+
+	private static final Queue<DataChangeEvent<?>> pending = new ConcurrentLinkedQueue<>();
+
+	private static final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+	private DataChangeBus() {
+	}
+
+	public static synchronized <T> void subscribe(Class<T> entityType, DataChangeListener<T> listener) {
+		listeners.computeIfAbsent(entityType, k -> new ArrayList<>()).add(new WeakReference<>(listener));
+	}
+
+	public static synchronized <T> void unsubscribe(Class<T> entityType, DataChangeListener<T> listener) {
+		List<WeakReference<DataChangeListener<?>>> list = listeners.get(entityType);
+		if (list != null) {
+			list.removeIf(ref -> ref.get() == null || ref.get() == listener);
+		}
+	}
+
+	public static void publish(DataChangeEvent<?> event) {
+		pending.add(event);
+		if (flushScheduled.compareAndSet(false, true)) {
+			Platform.runLater(DataChangeBus::flush);
+		}
+	}
+
+	private static void flush() {
+		// cleared first, so events published by listeners go into the next batch
+		flushScheduled.set(false);
+		List<DataChangeEvent<?>> batch = new ArrayList<>();
+		DataChangeEvent<?> event;
+		while ((event = pending.poll()) != null) {
+			batch.add(event);
+		}
+		for (DataChangeEvent<?> e : coalesce(batch)) {
+			dispatch(e);
+		}
+	}
+
+	/*
+	 * Keeps one event per entity, in order of first appearance: created then
+	 * updated stays created (with the latest state), created then deleted
+	 * cancels out. A bulk event replaces every other event of its type.
+	 */
+	private static List<DataChangeEvent<?>> coalesce(List<DataChangeEvent<?>> batch) {
+		Map<Class<?>, Map<Object, DataChangeEvent<?>>> byType = new LinkedHashMap<>();
+		for (DataChangeEvent<?> event : batch) {
+			Map<Object, DataChangeEvent<?>> events = byType.computeIfAbsent(event.getEntityType(), k -> new LinkedHashMap<>());
+			if (event.getType() == DataChangeEvent.Type.BULK) {
+				events.clear();
+				events.put(DataChangeEvent.Type.BULK, event);
+				continue;
+			}
+			if (events.containsKey(DataChangeEvent.Type.BULK)) {
+				continue;
+			}
+			DataChangeEvent<?> previous = events.get(event.getEntity());
+			if (previous == null) {
+				events.put(event.getEntity(), event);
+			} else if (previous.getType() == DataChangeEvent.Type.CREATED) {
+				if (event.getType() == DataChangeEvent.Type.DELETED) {
+					events.remove(event.getEntity());
+				} else {
+					events.put(event.getEntity(), merged(DataChangeEvent.Type.CREATED, event));
+				}
+			} else {
+				events.put(event.getEntity(), event);
+			}
+		}
+		List<DataChangeEvent<?>> result = new ArrayList<>();
+		for (Map<Object, DataChangeEvent<?>> events : byType.values()) {
+			result.addAll(events.values());
+		}
+		return result;
+	}
+
+	private static <T> DataChangeEvent<T> merged(DataChangeEvent.Type type, DataChangeEvent<T> latest) {
+		return new DataChangeEvent<>(type, latest.getEntity());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void dispatch(DataChangeEvent<T> event) {
+		List<DataChangeListener<T>> targets = new ArrayList<>();
+		synchronized (DataChangeBus.class) {
+			List<WeakReference<DataChangeListener<?>>> list = listeners.get(event.getEntityType());
+			if (list == null) {
+				return;
+			}
+			Iterator<WeakReference<DataChangeListener<?>>> it = list.iterator();
+			while (it.hasNext()) {
+				DataChangeListener<?> listener = it.next().get();
+				if (listener == null) {
+					it.remove();
+				} else {
+					targets.add((DataChangeListener<T>) listener);
+				}
+			}
+		}
+		// one failing listener must not keep the event from the others
+		for (DataChangeListener<T> listener : targets) {
+			try {
+				listener.onDataChanged(event);
+			} catch (RuntimeException e) {
+				System.err.println("Data change listener " + listener.getClass().getName() + " failed on "
+						+ event.getType() + " " + event.getEntityType().getSimpleName() + ": " + e);
+				e.printStackTrace();
+			}
+		}
+	}
+}
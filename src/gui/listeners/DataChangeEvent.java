@@ -0,0 +1,46 @@
+package gui.listeners;
+
+public class DataChangeEvent<T> {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED,
+		/** Many rows of the entity type changed at once; listeners should reload. The entity is null. */
+		BULK
+	}
+
+	private final Type type;
+	private final Class<T> entityType;
+	private final T entity;
+
+	@SuppressWarnings("unchecked")
+	public DataChangeEvent(Type type, T entity) {
+		this(type, (Class<T>) entity.getClass(), entity);
+	}
+
+	private DataChangeEvent(Type type, Class<T> entityType, T entity) {
+		this.type = type;
+		this.entityType = entityType;
+		this.entity = entity;
+	}
+
+	public static <T> DataChangeEvent<T> bulk(Class<T> entityType) {
+		return new DataChangeEvent<>(Type.BULK, entityType, null);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Class<T> getEntityType() {
+		return entityType;
+	}
+
+	public T getEntity() {
+		return entity;
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + (entity == null ? entityType.getSimpleName() : entity);
+	}
+}
@@ -0,0 +1,18 @@
+package gui.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("coursejdbc.FxmlLoad")
+@Label("FXML Load")
+@Category({ "Course JDBC", "JavaFX" })
+final class FxmlLoadEvent extends Event {
+
+	@Label("FXML")
+	String fxml;
+
+	@Label("Controller")
+	Class<?> controller;
+}
@@ -0,0 +1,229 @@
+package gui.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+/**
+ * Feeds a TableView from keyset-paginated queries. Pages are fetched as the
+ * viewport gets close to either end of the loaded rows, and at most maxRows
+ * rows are kept: when the window grows past that, rows are dropped from the
+ * opposite end and fetched again if the user scrolls back.
+ */
+public class PagedTableLoader<T> {
+
+	/** Fetches up to limit rows after (or before) the boundary row; a null boundary means the start (or end). */
+	public interface PageFetcher<T> {
+		CompletableFuture<List<T>> fetch(T boundary, int limit);
+	}
+
+	private final TableView<T> table;
+	private final PageFetcher<T> nextPage;
+	private final PageFetcher<T> previousPage;
+	private final int pageSize;
+	private final int maxRows;
+	private final int prefetchRows;
+
+	private final ObservableList<T> items = FXCollections.observableArrayList();
+	private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(false);
+
+	private Consumer<Throwable> onError = e -> {};
+
+	private boolean atStart = true;
+	private boolean atEnd = false;
+	private int generation = 0;
+	private CompletableFuture<List<T>> inFlight = null;
+
+	public PagedTableLoader(TableView<T> table, PageFetcher<T> nextPage, PageFetcher<T> previousPage, int pageSize,
+			int maxRows) {
+		if (maxRows < pageSize * 2) {
+			throw new IllegalArgumentException("maxRows must hold at least two pages");
+		}
+		this.table = table;
+		this.nextPage = nextPage;
+		this.previousPage = previousPage;
+		this.pageSize = pageSize;
+		this.maxRows = maxRows;
+		this.prefetchRows = pageSize / 2;
+
+		table.setItems(items);
+		table.skinProperty().addListener((obs, oldSkin, newSkin) -> installScrollListener());
+		installScrollListener();
+	}
+
+	public ObservableList<T> getItems() {
+		return items;
+	}
+
+	public ReadOnlyBooleanProperty loadingProperty() {
+		return loading.getReadOnlyProperty();
+	}
+
+	public void setOnError(Consumer<Throwable> onError) {
+		this.onError = onError;
+	}
+
+	public boolean isAtStart() {
+		return atStart;
+	}
+
+	public boolean isAtEnd() {
+		return atEnd;
+	}
+
+	/**
+	 * Adds a row that sorts after every other row, such as a newly created
+	 * one, when the last page is loaded (otherwise paging reaches it). The
+	 * window is trimmed to maxRows like after a page load.
+	 */
+	public void appendAtEnd(T row) {
+		if (atEnd) {
+			append(Collections.singletonList(row));
+		}
+	}
+
+	/**
+	 * Drops everything and loads the first page again. The returned future
+	 * completes once the page has been handled on the application thread.
+	 */
+	public CompletableFuture<List<T>> reload() {
+		int current = ++generation;
+		loading.set(true);
+		return start(nextPage.fetch(null, pageSize)).whenCompleteAsync((page, error) -> {
+			if (current != generation) {
+				return;
+			}
+			loading.set(false);
+			if (error != null) {
+				onError.accept(Utils.unwrap(error));
+				return;
+			}
+			items.setAll(page);
+			atStart = true;
+			atEnd = page.size() < pageSize;
+			table.scrollTo(0);
+			Platform.runLater(this::checkViewport);
+		}, Platform::runLater);
+	}
+
+	/* a newer load supersedes the one still running, so that one is cancelled */
+	private CompletableFuture<List<T>> start(CompletableFuture<List<T>> load) {
+		if (inFlight != null) {
+			inFlight.cancel(true);
+		}
+		inFlight = load;
+		return load;
+	}
+
+	private void loadNext() {
+		int current = ++generation;
+		T boundary = items.get(items.size() - 1);
+		loading.set(true);
+		start(nextPage.fetch(boundary, pageSize)).whenCompleteAsync((page, error) -> {
+			if (current != generation) {
+				return;
+			}
+			loading.set(false);
+			if (error != null) {
+				onError.accept(Utils.unwrap(error));
+				return;
+			}
+			append(page);
+			atEnd = page.size() < pageSize;
+			Platform.runLater(this::checkViewport);
+		}, Platform::runLater);
+	}
+
+	/* adds rows after the last one, dropping rows from the start past maxRows */
+	private void append(List<T> rows) {
+		int first = firstVisibleIndex();
+		items.addAll(rows);
+		int excess = items.size() - maxRows;
+		if (excess > 0) {
+			items.remove(0, excess);
+			atStart = false;
+			table.scrollTo(Math.max(0, first - excess));
+		}
+	}
+
+	private void loadPrevious() {
+		int current = ++generation;
+		T boundary = items.get(0);
+		loading.set(true);
+		start(previousPage.fetch(boundary, pageSize)).whenCompleteAsync((page, error) -> {
+			if (current != generation) {
+				return;
+			}
+			loading.set(false);
+			if (error != null) {
+				onError.accept(Utils.unwrap(error));
+				return;
+			}
+			int first = firstVisibleIndex();
+			items.addAll(0, page);
+			atStart = page.size() < pageSize;
+			int excess = items.size() - maxRows;
+			if (excess > 0) {
+				items.remove(items.size() - excess, items.size());
+				atEnd = false;
+			}
+			table.scrollTo(first + page.size());
+			Platform.runLater(this::checkViewport);
+		}, Platform::runLater);
+	}
+
+	private void checkViewport() {
+		if (loading.get() || items.isEmpty()) {
+			return;
+		}
+		VirtualFlow<?> flow = virtualFlow();
+		if (flow == null) {
+			return;
+		}
+		IndexedCell<?> firstCell = flow.getFirstVisibleCell();
+		IndexedCell<?> lastCell = flow.getLastVisibleCell();
+		if (firstCell == null || lastCell == null) {
+			return;
+		}
+		if (!atEnd && lastCell.getIndex() >= items.size() - 1 - prefetchRows) {
+			loadNext();
+		} else if (!atStart && firstCell.getIndex() <= prefetchRows) {
+			loadPrevious();
+		}
+	}
+
+	private int firstVisibleIndex() {
+		VirtualFlow<?> flow = virtualFlow();
+		IndexedCell<?> cell = flow == null ? null : flow.getFirstVisibleCell();
+		return cell == null ? 0 : cell.getIndex();
+	}
+
+	private VirtualFlow<?> virtualFlow() {
+		Node node = table.lookup(".virtual-flow");
+		return node instanceof VirtualFlow ? (VirtualFlow<?>) node : null;
+	}
+
+	private void installScrollListener() {
+		if (table.getSkin() == null) {
+			return;
+		}
+		for (Node node : table.lookupAll(".scroll-bar")) {
+			if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+				((ScrollBar) node).valueProperty().addListener((obs, oldValue, newValue) -> checkViewport());
+			}
+		}
+	}
+}
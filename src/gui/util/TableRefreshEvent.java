@@ -0,0 +1,27 @@
+package gui.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One updateTableView refresh, from the request until the rows are in the
+ * table (or the load failed or was superseded by a newer one).
+ */
+@Name("coursejdbc.TableRefresh")
+@Label("Table Refresh")
+@Category({ "Course JDBC", "JavaFX" })
+@Description("From updateTableView until the rows are shown")
+public final class TableRefreshEvent extends Event {
+
+	@Label("Table")
+	public String table;
+
+	@Label("Rows")
+	public int rows;
+
+	@Label("Succeeded")
+	public boolean succeeded;
+}
@@ -1,12 +1,16 @@
 package gui.util;
 
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import javafx.event.ActionEvent;
+import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TableCell;
@@ -19,6 +23,28 @@ public class Utils {
 		return (Stage) ((Node) event.getSource()).getScene().getWindow();
 	}
 
+	/* loader.load(), recorded as a coursejdbc.FxmlLoad flight recorder event */
+	public static <T> T loadFxml(FXMLLoader loader, String absoluteName) throws IOException {
+		FxmlLoadEvent event = new FxmlLoadEvent();
+		event.begin();
+		T root = loader.load();
+		if (event.shouldCommit()) {
+			event.fxml = absoluteName;
+			Object controller = loader.getController();
+			event.controller = controller == null ? null : controller.getClass();
+			event.commit();
+		}
+		return root;
+	}
+
+	public static Throwable unwrap(Throwable error) {
+		while ((error instanceof CompletionException || error instanceof ExecutionException)
+				&& error.getCause() != null) {
+			error = error.getCause();
+		}
+		return error;
+	}
+
 	public static Integer tryParseToInt(String str) {
 		try {
 			return Integer.parseInt(str);
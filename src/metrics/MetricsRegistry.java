@@ -0,0 +1,62 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide table of {@link OperationMetrics} by name ("dao.seller.findAll",
+ * "service.seller.findPage", "pool.getConnection"...). Metrics only ever
+ * accumulate; reset() zeroes them all.
+ */
+public class MetricsRegistry {
+
+	private static final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+	public static OperationMetrics get(String name) {
+		OperationMetrics metrics = operations.get(name);
+		return metrics != null ? metrics : operations.computeIfAbsent(name, OperationMetrics::new);
+	}
+
+	/* only operations that have been called, sorted by name */
+	public static List<OperationMetrics.Snapshot> snapshot() {
+		List<OperationMetrics.Snapshot> list = new ArrayList<>();
+		for (OperationMetrics metrics : operations.values()) {
+			OperationMetrics.Snapshot snapshot = metrics.snapshot();
+			if (snapshot.getCount() > 0) {
+				list.add(snapshot);
+			}
+		}
+		list.sort(Comparator.comparing(OperationMetrics.Snapshot::getName));
+		return list;
+	}
+
+	public static void reset() {
+		for (OperationMetrics metrics : operations.values()) {
+			metrics.reset();
+		}
+	}
+
+	/* writes a snapshot as CSV, latencies in microseconds */
+	public static int export(Path target) throws IOException {
+		List<OperationMetrics.Snapshot> list = snapshot();
+		try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+			writer.write("# metrics snapshot " + Instant.now() + "\n");
+			writer.write("Operation,Calls,Errors,Rows,MeanUs,P50Us,P90Us,P99Us,MaxUs\n");
+			for (OperationMetrics.Snapshot s : list) {
+				writer.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f\n", s.getName(),
+						s.getCount(), s.getErrors(), s.getRows(), s.getMean() / 1000.0, s.getP50() / 1000.0,
+						s.getP90() / 1000.0, s.getP99() / 1000.0, s.getMax() / 1000.0));
+			}
+		}
+		return list.size();
+	}
+}
@@ -0,0 +1,108 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, failures, latency and rows for one named operation. Callers look
+ * the instance up once and keep it, so recording a call is a few atomic
+ * increments and nothing else.
+ */
+public class OperationMetrics {
+
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+
+	OperationMetrics(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void record(long nanos, boolean success) {
+		latency.record(nanos);
+		if (!success) {
+			errors.increment();
+		}
+	}
+
+	public void addRows(long count) {
+		rows.add(count);
+	}
+
+	public Snapshot snapshot() {
+		return new Snapshot(name, latency.getCount(), errors.sum(), rows.sum(), latency.getMean(),
+				latency.getPercentile(50), latency.getPercentile(90), latency.getPercentile(99), latency.getMax());
+	}
+
+	void reset() {
+		latency.reset();
+		errors.reset();
+		rows.reset();
+	}
+
+	/** Values at one point in time; latencies are in nanoseconds. */
+	public static class Snapshot {
+		private final String name;
+		private final long count;
+		private final long errors;
+		private final long rows;
+		private final double mean;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long max;
+
+		Snapshot(String name, long count, long errors, long rows, double mean, long p50, long p90, long p99,
+				long max) {
+			this.name = name;
+			this.count = count;
+			this.errors = errors;
+			this.rows = rows;
+			this.mean = mean;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.max = max;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public long getRows() {
+			return rows;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public long getP50() {
+			return p50;
+		}
+
+		public long getP90() {
+			return p90;
+		}
+
+		public long getP99() {
+			return p99;
+		}
+
+		public long getMax() {
+			return max;
+		}
+	}
+}
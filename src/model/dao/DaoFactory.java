@@ -1,15 +1,77 @@
 package model.dao;
 
 import db.DB;
+import model.dao.impl.DepartmentDaoCache;
 import model.dao.impl.DepartmentDaoJDBC;
+import model.dao.impl.DepartmentDaoMemory;
+import model.dao.impl.DepartmentDaoMetrics;
+import model.dao.impl.MemoryStore;
+import model.dao.impl.ReportDaoJDBC;
+import model.dao.impl.ReportDaoMemory;
+import model.dao.impl.ReportDaoMetrics;
 import model.dao.impl.SellerDaoJDBC;
+import model.dao.impl.SellerDaoMemory;
+import model.dao.impl.SellerDaoMetrics;
 
+/**
+ * dao.mode in db.properties picks the implementations: "jdbc" (default) or
+ * "memory", which keeps everything in one {@link MemoryStore} filled with
+ * memory.sellers synthetic sellers and never opens a connection. Unless
+ * metrics.enabled=false, every DAO is wrapped to record its calls in the
+ * MetricsRegistry (the department DAO below the cache, so only real reads
+ * are timed).
+ */
 public class DaoFactory {
+	
+	private static DepartmentDaoCache departmentDao = null;
+	
+	private static MemoryStore memoryStore = null;
+	
+	public static boolean isInMemory() {
+		return "memory".equalsIgnoreCase(DB.getProperties().getProperty("dao.mode", "jdbc").trim());
+	}
+	
+	public static boolean isMetricsEnabled() {
+		return Boolean.parseBoolean(DB.getProperties().getProperty("metrics.enabled", "true").trim());
+	}
+	
 	public static SellerDao createSellerDao() {
-		return new SellerDaoJDBC(DB.getConnection());
+		SellerDao dao = isInMemory() ? new SellerDaoMemory(getMemoryStore())
+				: new SellerDaoJDBC(DB.getPool(), DB.getIntProperty("jdbc.batchSize", 500));
+		return isMetricsEnabled() ? new SellerDaoMetrics(dao) : dao;
+	}
+	
+	public static ReportDao createReportDao() {
+		ReportDao dao = isInMemory() ? new ReportDaoMemory(getMemoryStore()) : new ReportDaoJDBC(DB.getPool());
+		return isMetricsEnabled() ? new ReportDaoMetrics(dao) : dao;
+	}
+	
+	/* Departments go through one shared cache, so every caller sees the same invalidations. */
+	public static synchronized DepartmentDao createDepartmentDao() {
+		if (departmentDao == null) {
+			DepartmentDao dao = isInMemory() ? new DepartmentDaoMemory(getMemoryStore())
+					: new DepartmentDaoJDBC(DB.getPool(), DB.getIntProperty("jdbc.batchSize", 500));
+			if (isMetricsEnabled()) {
+				dao = new DepartmentDaoMetrics(dao);
+			}
+			departmentDao = new DepartmentDaoCache(dao,
+					DB.getIntProperty("cache.department.ttlMs", 300_000),
+					DB.getIntProperty("cache.department.maxSize", 1000));
+		}
+		return departmentDao;
+	}
+	
+	public static synchronized DepartmentDaoCache getDepartmentCache() {
+		createDepartmentDao();
+		return departmentDao;
 	}
 	
-	public static DepartmentDao createDepartmentDao() {
-		return new DepartmentDaoJDBC(DB.getConnection());
+	public static synchronized MemoryStore getMemoryStore() {
+		if (memoryStore == null) {
+			memoryStore = new MemoryStore();
+			memoryStore.populate(DB.getIntProperty("memory.departments", 20),
+					DB.getIntProperty("memory.sellers", 100_000), DB.getIntProperty("memory.seed", 42));
+		}
+		return memoryStore;
 	}
 }
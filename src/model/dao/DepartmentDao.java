@@ -1,13 +1,18 @@
 package model.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import model.entities.Department;
 
 public interface DepartmentDao {
 	void insert(Department obj);
 	void update(Department obj);
+	void insertAll(Collection<Department> list);
+	void updateAll(Collection<Department> list);
 	void delete(Department obj);
 	Department findById(Integer id);
 	List<Department> findAll();
+	void forEach(int fetchSize, Consumer<Department> action);
 }
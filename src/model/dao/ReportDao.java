@@ -0,0 +1,15 @@
+package model.dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import model.entities.DepartmentSalaryStats;
+
+public interface ReportDao {
+	/*
+	 * bandCutoffs are birth dates in descending order: band 0 is born after
+	 * bandCutoffs[0], band i after bandCutoffs[i], the last band is everyone
+	 * else. One result per department that has sellers.
+	 */
+	List<DepartmentSalaryStats> salaryStatsByDepartment(List<LocalDate> bandCutoffs);
+}
@@ -1,6 +1,8 @@
 package model.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import model.entities.Department;
 import model.entities.Seller;
@@ -8,8 +10,19 @@ import model.entities.Seller;
 public interface SellerDao {
 	void insert(Seller obj);
 	void update(Seller obj);
+	void insertAll(Collection<Seller> list);
+	void updateAll(Collection<Seller> list);
 	void deleteBy(Seller obj);
 	Seller findById(Integer id);
+	/* the sellers that exist among ids, by ascending id, in one query */
+	List<Seller> findByIds(int[] ids);
 	List<Seller> findAll();
 	List<Seller> findByDepartment(Department dep);
+	List<Seller> findPage(Integer afterId, int limit);
+	List<Seller> findPageBefore(Integer beforeId, int limit);
+	int count();
+	List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller after, int limit);
+	List<Seller> findPageBefore(SellerFilter filter, SellerSort sort, Seller before, int limit);
+	int count(SellerFilter filter);
+	void forEach(int fetchSize, Consumer<Seller> action);
 }
@@ -0,0 +1,104 @@
+package model.dao;
+
+import model.entities.Seller;
+
+/**
+ * Search criteria for the seller table. Unset (null) criteria are ignored;
+ * text criteria match by prefix so the queries can use an index on the
+ * column.
+ */
+public class SellerFilter {
+
+	private String namePrefix;
+	private String emailPrefix;
+	private Integer departmentId;
+	private Double minSalary;
+	private Double maxSalary;
+
+	public SellerFilter() {
+	}
+
+	public String getNamePrefix() {
+		return namePrefix;
+	}
+
+	public void setNamePrefix(String namePrefix) {
+		this.namePrefix = blankToNull(namePrefix);
+	}
+
+	public String getEmailPrefix() {
+		return emailPrefix;
+	}
+
+	public void setEmailPrefix(String emailPrefix) {
+		this.emailPrefix = blankToNull(emailPrefix);
+	}
+
+	public Integer getDepartmentId() {
+		return departmentId;
+	}
+
+	public void setDepartmentId(Integer departmentId) {
+		this.departmentId = departmentId;
+	}
+
+	public Double getMinSalary() {
+		return minSalary;
+	}
+
+	public void setMinSalary(Double minSalary) {
+		this.minSalary = minSalary;
+	}
+
+	public Double getMaxSalary() {
+		return maxSalary;
+	}
+
+	public void setMaxSalary(Double maxSalary) {
+		this.maxSalary = maxSalary;
+	}
+
+	public boolean isEmpty() {
+		return namePrefix == null && emailPrefix == null && departmentId == null && minSalary == null
+				&& maxSalary == null;
+	}
+
+	/*
+	 * Evaluates the filter in memory, e.g. to decide whether an edited row
+	 * still belongs in a filtered view. Prefixes compare case-insensitively,
+	 * like the default MySQL collation.
+	 */
+	public boolean matches(Seller obj) {
+		if (namePrefix != null && !startsWithIgnoreCase(obj.getName(), namePrefix)) {
+			return false;
+		}
+		if (emailPrefix != null && !startsWithIgnoreCase(obj.getEmail(), emailPrefix)) {
+			return false;
+		}
+		if (departmentId != null
+				&& (obj.getDepartment() == null || !departmentId.equals(obj.getDepartment().getId()))) {
+			return false;
+		}
+		if (minSalary != null && (obj.getBaseSalary() == null || obj.getBaseSalary() < minSalary)) {
+			return false;
+		}
+		if (maxSalary != null && (obj.getBaseSalary() == null || obj.getBaseSalary() > maxSalary)) {
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean startsWithIgnoreCase(String value, String prefix) {
+		return value != null && value.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value.trim();
+	}
+
+	@Override
+	public String toString() {
+		return "SellerFilter [namePrefix=" + namePrefix + ", emailPrefix=" + emailPrefix + ", departmentId="
+				+ departmentId + ", minSalary=" + minSalary + ", maxSalary=" + maxSalary + "]";
+	}
+}
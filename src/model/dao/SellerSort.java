@@ -0,0 +1,89 @@
+package model.dao;
+
+import java.sql.Timestamp;
+import java.util.Objects;
+
+import model.entities.Seller;
+
+/**
+ * Sort order for seller queries. Only the columns listed in {@link Column}
+ * can be sorted on, so the ORDER BY text never comes from user input. Ties
+ * are broken by seller.Id in the same direction, which makes (column, Id)
+ * a unique key for keyset paging.
+ */
+public class SellerSort {
+
+	public enum Column {
+		ID("seller.Id"),
+		NAME("seller.Name"),
+		EMAIL("seller.Email"),
+		BIRTH_DATE("seller.BirthDate"),
+		BASE_SALARY("seller.BaseSalary");
+
+		private final String sql;
+
+		private Column(String sql) {
+			this.sql = sql;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		/** The value of this column in a loaded row, ready to bind as a keyset boundary. */
+		public Object valueOf(Seller obj) {
+			switch (this) {
+			case NAME:
+				return obj.getName();
+			case EMAIL:
+				return obj.getEmail();
+			case BIRTH_DATE:
+				return obj.getBirthDate() == null ? null : new Timestamp(obj.getBirthDate().getTime());
+			case BASE_SALARY:
+				return obj.getBaseSalary();
+			default:
+				return obj.getId();
+			}
+		}
+	}
+
+	public static final SellerSort DEFAULT = new SellerSort(Column.ID, false);
+
+	private final Column column;
+	private final boolean descending;
+
+	public SellerSort(Column column, boolean descending) {
+		this.column = Objects.requireNonNull(column);
+		this.descending = descending;
+	}
+
+	public Column getColumn() {
+		return column;
+	}
+
+	public boolean isDescending() {
+		return descending;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(column, descending);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SellerSort other = (SellerSort) obj;
+		return column == other.column && descending == other.descending;
+	}
+
+	@Override
+	public String toString() {
+		return column + (descending ? " DESC" : " ASC");
+	}
+}
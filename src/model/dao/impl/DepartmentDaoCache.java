@@ -0,0 +1,195 @@
+package model.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import model.dao.DepartmentDao;
+import model.entities.Department;
+
+/**
+ * Read-through cache in front of another DepartmentDao. findById and findAll
+ * are served from memory for ttlMillis; every write through this DAO evicts
+ * the affected id and the cached list. At most maxSize departments are kept:
+ * findAll is only cached while the whole table fits.
+ */
+public class DepartmentDaoCache implements DepartmentDao {
+
+	private final DepartmentDao dao;
+	private final long ttlMillis;
+	private final int maxSize;
+
+	private final LinkedHashMap<Integer, Entry> byId;
+	private List<Department> all = null;
+	private long allLoadedAt;
+
+	/* bumped by every write, so a load that raced with a write is not cached */
+	private long version = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	public DepartmentDaoCache(DepartmentDao dao, long ttlMillis, int maxSize) {
+		this.dao = dao;
+		this.ttlMillis = ttlMillis;
+		this.maxSize = maxSize;
+		this.byId = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+				return size() > DepartmentDaoCache.this.maxSize;
+			}
+		};
+	}
+
+	@Override
+	public void insert(Department obj) {
+		try {
+			dao.insert(obj);
+		} finally {
+			invalidate(obj);
+		}
+	}
+
+	@Override
+	public void update(Department obj) {
+		try {
+			dao.update(obj);
+		} finally {
+			invalidate(obj);
+		}
+	}
+
+	@Override
+	public void insertAll(Collection<Department> list) {
+		try {
+			dao.insertAll(list);
+		} finally {
+			invalidateAll(list);
+		}
+	}
+
+	@Override
+	public void updateAll(Collection<Department> list) {
+		try {
+			dao.updateAll(list);
+		} finally {
+			invalidateAll(list);
+		}
+	}
+
+	@Override
+	public void delete(Department obj) {
+		try {
+			dao.delete(obj);
+		} finally {
+			invalidate(obj);
+		}
+	}
+
+	@Override
+	public Department findById(Integer id) {
+		long loadVersion;
+		synchronized (this) {
+			Entry entry = byId.get(id);
+			if (entry != null && !expired(entry.loadedAt)) {
+				hits++;
+				return entry.department;
+			}
+			misses++;
+			loadVersion = version;
+		}
+		Department dep = dao.findById(id);
+		synchronized (this) {
+			if (dep != null && loadVersion == version) {
+				byId.put(id, new Entry(dep, System.currentTimeMillis()));
+			}
+		}
+		return dep;
+	}
+
+	@Override
+	public List<Department> findAll() {
+		long loadVersion;
+		synchronized (this) {
+			if (all != null && !expired(allLoadedAt)) {
+				hits++;
+				return new ArrayList<>(all);
+			}
+			misses++;
+			loadVersion = version;
+		}
+		List<Department> deps = dao.findAll();
+		synchronized (this) {
+			if (loadVersion == version && deps.size() <= maxSize) {
+				long now = System.currentTimeMillis();
+				all = new ArrayList<>(deps);
+				allLoadedAt = now;
+				for (Department dep : deps) {
+					byId.put(dep.getId(), new Entry(dep, now));
+				}
+			}
+		}
+		return deps;
+	}
+
+	@Override
+	public void forEach(int fetchSize, Consumer<Department> action) {
+		dao.forEach(fetchSize, action);
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	public synchronized void clear() {
+		version++;
+		byId.clear();
+		all = null;
+	}
+
+	private synchronized void invalidate(Department obj) {
+		version++;
+		all = null;
+		if (obj.getId() != null) {
+			byId.remove(obj.getId());
+		}
+	}
+
+	private synchronized void invalidateAll(Collection<Department> list) {
+		version++;
+		all = null;
+		for (Department obj : list) {
+			if (obj.getId() != null) {
+				byId.remove(obj.getId());
+			}
+		}
+	}
+
+	private boolean expired(long loadedAt) {
+		return System.currentTimeMillis() - loadedAt > ttlMillis;
+	}
+
+	private static class Entry {
+		final Department department;
+		final long loadedAt;
+
+		Entry(Department department, long loadedAt) {
+			this.department = department;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
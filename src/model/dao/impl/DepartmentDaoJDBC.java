@@ -4,9 +4,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
+import db.ConnectionPool;
 import db.DB;
 import db.DbException;
 import model.dao.DepartmentDao;
@@ -14,37 +18,52 @@ import model.entities.Department;
 
 public class DepartmentDaoJDBC implements DepartmentDao {
 
-	private Connection conn;
+	private ConnectionPool pool;
 
-	public DepartmentDaoJDBC(Connection conn) {
-		this.conn = conn;
+	private int batchSize;
+
+	public DepartmentDaoJDBC(ConnectionPool pool, int batchSize) {
+		this.pool = pool;
+		this.batchSize = batchSize;
 	}
 
 	@Override
 	public void insert(Department obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
+		ResultSet rs = null;
 		try {
 
-			st = conn.prepareStatement("INSERT INTO department" + " (Name) VALUES (?);");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("INSERT INTO department (Name) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
 
 			st.setString(1, obj.getName());
 
-			st.execute();
+			st.executeUpdate();
+
+			rs = st.getGeneratedKeys();
+			if (rs.next()) {
+				obj.setId(rs.getInt(1));
+			}
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
 		} finally {
+			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 
 	}
 
 	@Override
 	public void update(Department obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 
 		try {
-			st = conn.prepareStatement("UPDATE department SET Name = ? WHERE Id = ?;");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("UPDATE department SET Name = ? WHERE Id = ?");
 
 			st.setString(1, obj.getName());
 			st.setInt(2, obj.getId());
@@ -55,15 +74,112 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 			throw new DbException(e.getMessage());
 		}finally {
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public void insertAll(Collection<Department> list) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		List<Department> inserted = new ArrayList<>(list.size());
+		boolean committed = false;
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			st = conn.prepareStatement("INSERT INTO department (Name) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+
+			int pending = 0;
+			for (Department obj : list) {
+				st.setString(1, obj.getName());
+				st.addBatch();
+				inserted.add(obj);
+				if (++pending == batchSize) {
+					executeInsertBatch(st, inserted, pending);
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				executeInsertBatch(st, inserted, pending);
+			}
+			conn.commit();
+			committed = true;
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			if (!committed) {
+				// any failure, not only SQLException, undoes the ids of earlier batches
+				for (Department obj : inserted) {
+					obj.setId(null);
+				}
+				DB.rollback(conn);
+			}
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	private static void executeInsertBatch(PreparedStatement st, List<Department> inserted, int pending)
+			throws SQLException {
+		st.executeBatch();
+		ResultSet rs = null;
+		try {
+			rs = st.getGeneratedKeys();
+			int i = inserted.size() - pending;
+			while (rs.next() && i < inserted.size()) {
+				inserted.get(i++).setId(rs.getInt(1));
+			}
+		} finally {
+			DB.closeResultSet(rs);
+		}
+	}
+
+	@Override
+	public void updateAll(Collection<Department> list) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		boolean committed = false;
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			st = conn.prepareStatement("UPDATE department SET Name = ? WHERE Id = ?");
+
+			int pending = 0;
+			for (Department obj : list) {
+				st.setString(1, obj.getName());
+				st.setInt(2, obj.getId());
+				st.addBatch();
+				if (++pending == batchSize) {
+					st.executeBatch();
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				st.executeBatch();
+			}
+			conn.commit();
+			committed = true;
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			if (!committed) {
+				DB.rollback(conn);
+			}
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 	}
 
 	
 	@Override
 	public void delete(Department obj) {
+	    Connection conn = null;
 	    PreparedStatement st = null;
 	    try {
-	        st = conn.prepareStatement("DELETE FROM department WHERE id = ?;");
+	        conn = pool.getConnection();
+	        st = conn.prepareStatement("DELETE FROM department WHERE Id = ?");
 	        st.setInt(1, obj.getId());
 
 	        st.executeUpdate();
@@ -72,6 +188,7 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 	        throw new DbException(e.getMessage());
 	    } finally {
 	        DB.closeStatement(st);
+	        pool.releaseConnection(conn);
 	    }
 	}
 
@@ -79,17 +196,19 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 	@Override
 	public Department findById(Integer id) {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 
 		try {
-			st = conn.prepareStatement("select * from department where Id = ?");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("SELECT " + DepartmentRowMapper.COLUMNS + "FROM department WHERE Id = ?");
 			st.setInt(1, id);
 
 			rs = st.executeQuery();
 
 			if (rs.next()) {
-				return instanceDepartment(rs);
+				return new DepartmentRowMapper(rs).map(rs);
 			}
 
 		} catch (SQLException e) {
@@ -97,28 +216,27 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 		return null;
 
 	}
 
-	public static Department instanceDepartment(ResultSet rs) throws SQLException {
-		return new Department(rs.getInt("Id"), rs.getString("Name"));
-
-	}
-
 	@Override
 	public List<Department> findAll() {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
 			List<Department> deps = new ArrayList<>();
 
-			st = conn.prepareStatement("SELECT * from department;");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("SELECT " + DepartmentRowMapper.COLUMNS + "FROM department");
 			rs = st.executeQuery();
 
+			DepartmentRowMapper mapper = new DepartmentRowMapper(rs);
 			while (rs.next()) {
-				deps.add(instanceDepartment(rs));
+				deps.add(mapper.map(rs));
 			}
 
 			return deps;
@@ -128,7 +246,39 @@ public class DepartmentDaoJDBC implements DepartmentDao {
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 	}
 
+	/*
+	 * Streams every row to the action as it is read, with a forward-only,
+	 * read-only result set; the driver keeps only fetchSize rows in memory
+	 * (MySQL needs useCursorFetch=true for that).
+	 */
+	@Override
+	public void forEach(int fetchSize, Consumer<Department> action) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			st = conn.prepareStatement("SELECT " + DepartmentRowMapper.COLUMNS + "FROM department ORDER BY Id",
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			st.setFetchSize(fetchSize);
+
+			rs = st.executeQuery();
+			DepartmentRowMapper mapper = new DepartmentRowMapper(rs);
+			while (rs.next()) {
+				action.accept(mapper.map(rs));
+			}
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
 }
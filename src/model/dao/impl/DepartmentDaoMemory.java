@@ -0,0 +1,72 @@
+package model.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import model.dao.DepartmentDao;
+import model.entities.Department;
+
+/**
+ * DepartmentDao over a {@link MemoryStore}. Deleting a department that
+ * still has sellers fails with DBIntegrityExeption, as the foreign key
+ * would in the database.
+ */
+public class DepartmentDaoMemory implements DepartmentDao {
+
+	private MemoryStore store;
+
+	public DepartmentDaoMemory(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public void insert(Department obj) {
+		store.insertDepartments(Collections.singletonList(obj));
+	}
+
+	@Override
+	public void update(Department obj) {
+		store.updateDepartments(Collections.singletonList(obj));
+	}
+
+	@Override
+	public void insertAll(Collection<Department> list) {
+		store.insertDepartments(list);
+	}
+
+	@Override
+	public void updateAll(Collection<Department> list) {
+		store.updateDepartments(list);
+	}
+
+	@Override
+	public void delete(Department obj) {
+		store.deleteDepartment(obj.getId());
+	}
+
+	@Override
+	public Department findById(Integer id) {
+		String name = store.departments.get(id);
+		return name == null ? null : new Department(id, name);
+	}
+
+	@Override
+	public List<Department> findAll() {
+		List<Department> deps = new ArrayList<>(store.departments.size());
+		for (Map.Entry<Integer, String> entry : store.departments.entrySet()) {
+			deps.add(new Department(entry.getKey(), entry.getValue()));
+		}
+		return deps;
+	}
+
+	@Override
+	public void forEach(int fetchSize, Consumer<Department> action) {
+		for (Map.Entry<Integer, String> entry : store.departments.entrySet()) {
+			action.accept(new Department(entry.getKey(), entry.getValue()));
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package model.dao.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.dao.DepartmentDao;
+import model.entities.Department;
+
+/**
+ * Records the latency, failures and rows of every call on another
+ * DepartmentDao under "dao.department.<method>" in the {@link MetricsRegistry}.
+ */
+public class DepartmentDaoMetrics implements DepartmentDao {
+
+	private DepartmentDao dao;
+
+	private final OperationMetrics insert = MetricsRegistry.get("dao.department.insert");
+	private final OperationMetrics update = MetricsRegistry.get("dao.department.update");
+	private final OperationMetrics insertAll = MetricsRegistry.get("dao.department.insertAll");
+	private final OperationMetrics updateAll = MetricsRegistry.get("dao.department.updateAll");
+	private final OperationMetrics delete = MetricsRegistry.get("dao.department.delete");
+	private final OperationMetrics findById = MetricsRegistry.get("dao.department.findById");
+	private final OperationMetrics findAll = MetricsRegistry.get("dao.department.findAll");
+	private final OperationMetrics forEach = MetricsRegistry.get("dao.department.forEach");
+
+	public DepartmentDaoMetrics(DepartmentDao dao) {
+		this.dao = dao;
+	}
+
+	@Override
+	public void insert(Department obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.insert(obj);
+			insert.addRows(1);
+			success = true;
+		} finally {
+			insert.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void update(Department obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.update(obj);
+			update.addRows(1);
+			success = true;
+		} finally {
+			update.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void insertAll(Collection<Department> list) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.insertAll(list);
+			insertAll.addRows(list.size());
+			success = true;
+		} finally {
+			insertAll.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void updateAll(Collection<Department> list) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.updateAll(list);
+			updateAll.addRows(list.size());
+			success = true;
+		} finally {
+			updateAll.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void delete(Department obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.delete(obj);
+			delete.addRows(1);
+			success = true;
+		} finally {
+			delete.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public Department findById(Integer id) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			Department result = dao.findById(id);
+			findById.addRows(result == null ? 0 : 1);
+			success = true;
+			return result;
+		} finally {
+			findById.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Department> findAll() {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Department> result = dao.findAll();
+			findAll.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findAll.record(System.nanoTime() - start, success);
+		}
+	}
+
+	/* one counting wrapper per call, not per row */
+	@Override
+	public void forEach(int fetchSize, Consumer<Department> action) {
+		long start = System.nanoTime();
+		boolean success = false;
+		long[] rows = { 0 };
+		try {
+			dao.forEach(fetchSize, obj -> {
+				rows[0]++;
+				action.accept(obj);
+			});
+			success = true;
+		} finally {
+			forEach.addRows(rows[0]);
+			forEach.record(System.nanoTime() - start, success);
+		}
+	}
+}
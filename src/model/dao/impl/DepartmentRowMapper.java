@@ -0,0 +1,27 @@
+package model.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import model.entities.Department;
+
+/**
+ * Maps rows selected with {@link #COLUMNS}.
+ */
+public class DepartmentRowMapper implements RowMapper<Department> {
+
+	public static final String COLUMNS = "department.Id, department.Name ";
+
+	private final int id;
+	private final int name;
+
+	public DepartmentRowMapper(ResultSet rs) throws SQLException {
+		id = rs.findColumn("Id");
+		name = rs.findColumn("Name");
+	}
+
+	@Override
+	public Department map(ResultSet rs) throws SQLException {
+		return new Department(rs.getInt(id), rs.getString(name));
+	}
+}
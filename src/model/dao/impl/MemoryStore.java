@@ -0,0 +1,186 @@
+package model.dao.impl;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import db.DBIntegrityExeption;
+import db.DbException;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * The department and seller tables behind the in-memory DAOs. Rows are
+ * immutable and kept in concurrent sorted maps, with a department id to
+ * seller ids index, so readers never lock: a write replaces whole rows.
+ * Writes are serialized on the store, which keeps the index and the
+ * department foreign key consistent with the rows.
+ */
+public class MemoryStore {
+
+	static final class SellerRow {
+		final int id;
+		final String name;
+		final String email;
+		final long birthDate;
+		final double baseSalary;
+		final int departmentId;
+
+		SellerRow(int id, String name, String email, long birthDate, double baseSalary, int departmentId) {
+			this.id = id;
+			this.name = name;
+			this.email = email;
+			this.birthDate = birthDate;
+			this.baseSalary = baseSalary;
+			this.departmentId = departmentId;
+		}
+	}
+
+	private static final String[] FIRST_NAMES = { "Alex", "Ana", "Bob", "Carla", "Daniel", "Eva", "Felipe", "Grace",
+			"Hugo", "Ines", "John", "Julia", "Lucas", "Maria", "Nina", "Otto", "Paula", "Rafael", "Sofia", "Victor" };
+
+	private static final String[] LAST_NAMES = { "Almeida", "Brown", "Costa", "Dias", "Evans", "Ferreira", "Green",
+			"Lima", "Martins", "Nunes", "Oliveira", "Pereira", "Ribeiro", "Santos", "Silva", "Smith", "Souza",
+			"Taylor", "Walker", "Young" };
+
+	final ConcurrentSkipListMap<Integer, String> departments = new ConcurrentSkipListMap<>();
+	final ConcurrentSkipListMap<Integer, SellerRow> sellers = new ConcurrentSkipListMap<>();
+	final ConcurrentHashMap<Integer, NavigableSet<Integer>> sellersByDepartment = new ConcurrentHashMap<>();
+
+	private int nextDepartmentId = 1;
+	private int nextSellerId = 1;
+
+	/* the seller ids of one department, in id order */
+	NavigableSet<Integer> sellerIds(int departmentId) {
+		NavigableSet<Integer> ids = sellersByDepartment.get(departmentId);
+		return ids == null ? Collections.emptyNavigableSet() : ids;
+	}
+
+	Seller toSeller(SellerRow row) {
+		return new Seller(row.id, row.name, row.email, new Date(row.birthDate), row.baseSalary,
+				new Department(row.departmentId, departments.get(row.departmentId)));
+	}
+
+	synchronized void insertDepartments(Collection<Department> list) {
+		for (Department obj : list) {
+			obj.setId(nextDepartmentId++);
+			departments.put(obj.getId(), obj.getName());
+		}
+	}
+
+	/* like UPDATE ... WHERE Id = ?, a department that does not exist is ignored */
+	synchronized void updateDepartments(Collection<Department> list) {
+		for (Department obj : list) {
+			departments.replace(obj.getId(), obj.getName());
+		}
+	}
+
+	synchronized void deleteDepartment(Integer id) {
+		if (!sellerIds(id).isEmpty()) {
+			throw new DBIntegrityExeption("Department " + departments.get(id) + " still has sellers");
+		}
+		departments.remove(id);
+		sellersByDepartment.remove(id);
+	}
+
+	/* all or nothing, like the batched JDBC insert in one transaction */
+	synchronized void insertSellers(Collection<Seller> list) {
+		List<SellerRow> rows = new ArrayList<>(list.size());
+		int id = nextSellerId;
+		for (Seller obj : list) {
+			checkDepartment(obj);
+			rows.add(toRow(id++, obj));
+		}
+		nextSellerId = id;
+		int i = 0;
+		for (Seller obj : list) {
+			SellerRow row = rows.get(i++);
+			put(row);
+			obj.setId(row.id);
+		}
+	}
+
+	synchronized void updateSellers(Collection<Seller> list) {
+		for (Seller obj : list) {
+			checkDepartment(obj);
+		}
+		for (Seller obj : list) {
+			SellerRow old = sellers.get(obj.getId());
+			if (old != null) {
+				if (old.departmentId != obj.getDepartment().getId()) {
+					sellerIds(old.departmentId).remove(old.id);
+				}
+				put(toRow(obj.getId(), obj));
+			}
+		}
+	}
+
+	synchronized void deleteSeller(Integer id) {
+		SellerRow old = sellers.remove(id);
+		if (old != null) {
+			sellerIds(old.departmentId).remove(old.id);
+		}
+	}
+
+	/*
+	 * Fills an empty store with synthetic departments and sellers; the same
+	 * seed always gives the same data.
+	 */
+	public synchronized void populate(int departmentCount, int sellerCount, long seed) {
+		List<Department> deps = new ArrayList<>(departmentCount);
+		for (int i = 1; i <= departmentCount; i++) {
+			deps.add(new Department(null, "Department " + i));
+		}
+		insertDepartments(deps);
+		if (deps.isEmpty()) {
+			return;
+		}
+
+		Random random = new Random(seed);
+		long firstBirthDay = LocalDate.of(1955, 1, 1).toEpochDay();
+		ZoneId zone = ZoneId.systemDefault();
+		List<Seller> chunk = new ArrayList<>();
+		for (int i = 0; i < sellerCount; i++) {
+			String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+			String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+			LocalDate birth = LocalDate.ofEpochDay(firstBirthDay + random.nextInt(18_000));
+			chunk.add(new Seller(null, first + " " + last,
+					(first + "." + last + i).toLowerCase(Locale.ROOT) + "@example.com",
+					Date.from(birth.atStartOfDay(zone).toInstant()),
+					1000.0 + random.nextInt(900_000) / 100.0,
+					deps.get(random.nextInt(deps.size()))));
+			if (chunk.size() == 10_000) {
+				insertSellers(chunk);
+				chunk.clear();
+			}
+		}
+		insertSellers(chunk);
+	}
+
+	private void put(SellerRow row) {
+		sellers.put(row.id, row);
+		sellersByDepartment.computeIfAbsent(row.departmentId, k -> new ConcurrentSkipListSet<>()).add(row.id);
+	}
+
+	private void checkDepartment(Seller obj) {
+		if (obj.getDepartment() == null || !departments.containsKey(obj.getDepartment().getId())) {
+			throw new DbException("Department does not exist: "
+					+ (obj.getDepartment() == null ? null : obj.getDepartment().getId()));
+		}
+	}
+
+	private static SellerRow toRow(int id, Seller obj) {
+		return new SellerRow(id, obj.getName(), obj.getEmail(), obj.getBirthDate().getTime(),
+				obj.getBaseSalary(), obj.getDepartment().getId());
+	}
+}
@@ -0,0 +1,80 @@
+package model.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import db.ConnectionPool;
+import db.DB;
+import db.DbException;
+import model.dao.ReportDao;
+import model.entities.DepartmentSalaryStats;
+
+public class ReportDaoJDBC implements ReportDao {
+
+	private ConnectionPool pool;
+
+	public ReportDaoJDBC(ConnectionPool pool) {
+		this.pool = pool;
+	}
+
+	/*
+	 * One pass over seller: the database groups by department and age band,
+	 * and the few groups that come back are folded into one result per
+	 * department here.
+	 */
+	@Override
+	public List<DepartmentSalaryStats> salaryStatsByDepartment(List<LocalDate> bandCutoffs) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			StringBuilder band = new StringBuilder("CASE ");
+			for (int i = 0; i < bandCutoffs.size(); i++) {
+				band.append("WHEN seller.BirthDate > ? THEN ").append(i).append(' ');
+			}
+			band.append("ELSE ").append(bandCutoffs.size()).append(" END");
+
+			conn = pool.getConnection();
+			// the band is computed in a derived table because not every engine lets GROUP BY use a select alias
+			st = conn.prepareStatement(
+					"SELECT DepartmentId, DepartmentName, Band, "
+					+ "COUNT(*), SUM(BaseSalary), MIN(BaseSalary), MAX(BaseSalary) "
+					+ "FROM (SELECT seller.DepartmentId, department.Name AS DepartmentName, " + band + " AS Band, "
+					+ "seller.BaseSalary FROM seller INNER JOIN department "
+					+ "ON seller.DepartmentId = department.Id) banded "
+					+ "GROUP BY DepartmentId, DepartmentName, Band "
+					+ "ORDER BY DepartmentName, DepartmentId");
+
+			for (int i = 0; i < bandCutoffs.size(); i++) {
+				st.setDate(i + 1, java.sql.Date.valueOf(bandCutoffs.get(i)));
+			}
+
+			rs = st.executeQuery();
+			Map<Integer, DepartmentSalaryStats> stats = new LinkedHashMap<>();
+			while (rs.next()) {
+				int depId = rs.getInt(1);
+				DepartmentSalaryStats dep = stats.get(depId);
+				if (dep == null) {
+					dep = new DepartmentSalaryStats(depId, rs.getString(2), bandCutoffs.size() + 1);
+					stats.put(depId, dep);
+				}
+				dep.addGroup(rs.getInt(3), rs.getInt(4), rs.getDouble(5), rs.getDouble(6), rs.getDouble(7));
+			}
+			return new ArrayList<>(stats.values());
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package model.dao.impl;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.dao.ReportDao;
+import model.entities.DepartmentSalaryStats;
+
+public class ReportDaoMemory implements ReportDao {
+
+	private MemoryStore store;
+
+	public ReportDaoMemory(MemoryStore store) {
+		this.store = store;
+	}
+
+	/* one pass over the sellers, each row folded in as a group of one */
+	@Override
+	public List<DepartmentSalaryStats> salaryStatsByDepartment(List<LocalDate> bandCutoffs) {
+		ZoneId zone = ZoneId.systemDefault();
+		long[] cutoffs = new long[bandCutoffs.size()];
+		for (int i = 0; i < cutoffs.length; i++) {
+			cutoffs[i] = bandCutoffs.get(i).atStartOfDay(zone).toInstant().toEpochMilli();
+		}
+
+		Map<Integer, DepartmentSalaryStats> stats = new HashMap<>();
+		for (MemoryStore.SellerRow row : store.sellers.values()) {
+			DepartmentSalaryStats dep = stats.get(row.departmentId);
+			if (dep == null) {
+				dep = new DepartmentSalaryStats(row.departmentId, store.departments.get(row.departmentId),
+						cutoffs.length + 1);
+				stats.put(row.departmentId, dep);
+			}
+			int band = 0;
+			while (band < cutoffs.length && row.birthDate <= cutoffs[band]) {
+				band++;
+			}
+			dep.addGroup(band, 1, row.baseSalary, row.baseSalary, row.baseSalary);
+		}
+
+		List<DepartmentSalaryStats> list = new ArrayList<>(stats.values());
+		list.sort(Comparator.comparing(DepartmentSalaryStats::getDepartmentName,
+				Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+				.thenComparingInt(DepartmentSalaryStats::getDepartmentId));
+		return list;
+	}
+}
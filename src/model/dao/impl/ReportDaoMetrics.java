@@ -0,0 +1,38 @@
+package model.dao.impl;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.dao.ReportDao;
+import model.entities.DepartmentSalaryStats;
+
+/**
+ * Records the latency, failures and rows of every call on another
+ * ReportDao under "dao.report.<method>" in the {@link MetricsRegistry}.
+ */
+public class ReportDaoMetrics implements ReportDao {
+
+	private ReportDao dao;
+
+	private final OperationMetrics salaryStatsByDepartment = MetricsRegistry.get("dao.report.salaryStatsByDepartment");
+
+	public ReportDaoMetrics(ReportDao dao) {
+		this.dao = dao;
+	}
+
+	@Override
+	public List<DepartmentSalaryStats> salaryStatsByDepartment(List<LocalDate> bandCutoffs) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<DepartmentSalaryStats> result = dao.salaryStatsByDepartment(bandCutoffs);
+			salaryStatsByDepartment.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			salaryStatsByDepartment.record(System.nanoTime() - start, success);
+		}
+	}
+}
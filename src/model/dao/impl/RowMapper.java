@@ -0,0 +1,13 @@
+package model.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet. Implementations look their column
+ * indexes up once, when they are created for a result set, and read every
+ * row by index afterwards.
+ */
+public interface RowMapper<T> {
+	T map(ResultSet rs) throws SQLException;
+}
@@ -4,30 +4,45 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
+import db.CancellableQuery;
+import db.ConnectionPool;
 import db.DB;
 import db.DbException;
 import model.dao.SellerDao;
+import model.dao.SellerFilter;
+import model.dao.SellerSort;
 import model.entities.Department;
 import model.entities.Seller;
 
 public class SellerDaoJDBC implements SellerDao {
 
-	private Connection conn;
+	private ConnectionPool pool;
 
-	public SellerDaoJDBC(Connection conn) {
-		this.conn = conn;
+	private int batchSize;
+
+	public SellerDaoJDBC(ConnectionPool pool, int batchSize) {
+		this.pool = pool;
+		this.batchSize = batchSize;
 	}
 
 	@Override
 	public void insert(Seller obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
+		ResultSet rs = null;
 		try {
 
+			conn = pool.getConnection();
 			st = conn.prepareStatement(
-					"INSERT INTO Seller ( Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?);");
+					"INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?)",
+					Statement.RETURN_GENERATED_KEYS);
 
 			st.setString(1, obj.getName());
 			st.setString(2, obj.getEmail());
@@ -35,28 +50,37 @@ public class SellerDaoJDBC implements SellerDao {
 			st.setDouble(4, obj.getBaseSalary());
 			st.setInt(5, obj.getDepartment().getId());
 
-			st.execute();
+			st.executeUpdate();
+
+			rs = st.getGeneratedKeys();
+			if (rs.next()) {
+				obj.setId(rs.getInt(1));
+			}
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
 		} finally {
+			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 
 	}
 
 	@Override
 	public void update(Seller obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 
 		try {
+			conn = pool.getConnection();
 			st = conn.prepareStatement("UPDATE seller "
 					+ "SET Name = ?, "
 					+ "Email = ?, "
 					+ "BirthDate = ?, "
 					+ "BaseSalary = ?, "
 					+ "DepartmentId = ? "
-					+ "WHERE Id = ?;");
+					+ "WHERE Id = ?");
 
 			st.setString(1, obj.getName());
 			st.setString(2, obj.getEmail());
@@ -71,16 +95,129 @@ public class SellerDaoJDBC implements SellerDao {
 			throw new DbException(e.getMessage());
 		}finally {
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+
+	}
+
+	@Override
+	public void insertAll(Collection<Seller> list) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		List<Seller> inserted = new ArrayList<>(list.size());
+		boolean committed = false;
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			st = conn.prepareStatement(
+					"INSERT INTO seller (Name, Email, BirthDate, BaseSalary, DepartmentId) VALUES (?, ?, ?, ?, ?)",
+					Statement.RETURN_GENERATED_KEYS);
+
+			int pending = 0;
+			for (Seller obj : list) {
+				st.setString(1, obj.getName());
+				st.setString(2, obj.getEmail());
+				st.setDate(3, new java.sql.Date(obj.getBirthDate().getTime()));
+				st.setDouble(4, obj.getBaseSalary());
+				st.setInt(5, obj.getDepartment().getId());
+				st.addBatch();
+				inserted.add(obj);
+				if (++pending == batchSize) {
+					executeInsertBatch(st, inserted, pending);
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				executeInsertBatch(st, inserted, pending);
+			}
+			conn.commit();
+			committed = true;
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			if (!committed) {
+				// any failure, not only SQLException, undoes the ids of earlier batches
+				for (Seller obj : inserted) {
+					obj.setId(null);
+				}
+				DB.rollback(conn);
+			}
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
+	}
 
+	private static void executeInsertBatch(PreparedStatement st, List<Seller> inserted, int pending)
+			throws SQLException {
+		st.executeBatch();
+		ResultSet rs = null;
+		try {
+			rs = st.getGeneratedKeys();
+			int i = inserted.size() - pending;
+			while (rs.next() && i < inserted.size()) {
+				inserted.get(i++).setId(rs.getInt(1));
+			}
+		} finally {
+			DB.closeResultSet(rs);
+		}
+	}
+
+	@Override
+	public void updateAll(Collection<Seller> list) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		boolean committed = false;
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			st = conn.prepareStatement("UPDATE seller "
+					+ "SET Name = ?, "
+					+ "Email = ?, "
+					+ "BirthDate = ?, "
+					+ "BaseSalary = ?, "
+					+ "DepartmentId = ? "
+					+ "WHERE Id = ?");
+
+			int pending = 0;
+			for (Seller obj : list) {
+				st.setString(1, obj.getName());
+				st.setString(2, obj.getEmail());
+				st.setDate(3, new java.sql.Date(obj.getBirthDate().getTime()));
+				st.setDouble(4, obj.getBaseSalary());
+				st.setInt(5, obj.getDepartment().getId());
+				st.setInt(6, obj.getId());
+				st.addBatch();
+				if (++pending == batchSize) {
+					st.executeBatch();
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				st.executeBatch();
+			}
+			conn.commit();
+			committed = true;
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			if (!committed) {
+				DB.rollback(conn);
+			}
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
 	}
 
 	@Override
 	public void deleteBy(Seller obj) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		try {
 
-			st = conn.prepareStatement("Delete from seller where id = ?;");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("DELETE FROM seller WHERE Id = ?");
 
 			st.setInt(1, obj.getId());
 			
@@ -90,6 +227,7 @@ public class SellerDaoJDBC implements SellerDao {
 			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 
 	}
@@ -97,21 +235,21 @@ public class SellerDaoJDBC implements SellerDao {
 	@Override
 	public Seller findById(Integer id) {
 
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 
 		try {
-			st = conn.prepareStatement(
-			"SELECT seller.*,department.Name as DepName  " + 
-			"FROM seller INNER JOIN department " + 
-			"ON seller.DepartmentId = department.Id " + 
-			"WHERE seller.Id = ?");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("SELECT " + SellerRowMapper.COLUMNS
+					+ SellerRowMapper.FROM
+					+ "WHERE seller.Id = ?");
 			st.setInt(1, id);
 
 			rs = st.executeQuery();
 
 			if (rs.next()) {
-				return instaciateSeller(rs);
+				return new SellerRowMapper(rs).map(rs);
 			} else {
 				return null;
 			}
@@ -120,82 +258,316 @@ public class SellerDaoJDBC implements SellerDao {
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 	}
 
-	private static Seller instaciateSeller(ResultSet rs) throws SQLException {
-		Department dep = new Department(rs.getInt("DepartmentId"),rs.getString("depName"));
-		return new Seller(rs.getInt("Id"), 
-				rs.getString("Name"), 
-				rs.getString("Email"), 
-				new java.util.Date(rs.getTimestamp("BirthDate").getTime()),
-				rs.getDouble("BaseSalary"), 
-				dep);
+	/*
+	 * The IN list is padded (with the last id) to a power of two, so the
+	 * statement cache sees a handful of SQL shapes instead of one per count.
+	 */
+	@Override
+	public List<Seller> findByIds(int[] ids) {
+		List<Seller> sellers = new ArrayList<>();
+		if (ids.length == 0) {
+			return sellers;
+		}
+		int slots = Integer.highestOneBit(ids.length);
+		if (slots < ids.length) {
+			slots *= 2;
+		}
+		StringBuilder sql = new StringBuilder("SELECT " + SellerRowMapper.COLUMNS + SellerRowMapper.FROM
+				+ "WHERE seller.Id IN (");
+		for (int i = 0; i < slots; i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(") ORDER BY seller.Id");
+
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = pool.getConnection();
+			st = conn.prepareStatement(sql.toString());
+			for (int i = 0; i < slots; i++) {
+				st.setInt(i + 1, ids[Math.min(i, ids.length - 1)]);
+			}
+			rs = st.executeQuery();
+			SellerRowMapper mapper = new SellerRowMapper(rs);
+			while (rs.next()) {
+				sellers.add(mapper.map(rs));
+			}
+			return sellers;
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
 	}
 
 	@Override
 	public List<Seller> findAll() {
 
 		List<Seller> sellers = new ArrayList<>();
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
 
-			st = conn.prepareStatement("SELECT seller.*,department.Name as DepName "
-					+ "FROM seller INNER JOIN department "
-					+ "ON seller.DepartmentId = department.Id");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("SELECT " + SellerRowMapper.COLUMNS
+					+ SellerRowMapper.FROM);
 			rs = st.executeQuery();
 
-			if ( rs.next()) {
-				while (rs.next()) {
-					sellers.add(instaciateSeller(rs));
-				}
-
-				return sellers;
-				}
-				else {
-					return null;
-				}
+			SellerRowMapper mapper = new SellerRowMapper(rs);
+			while (rs.next()) {
+				sellers.add(mapper.map(rs));
+			}
+			return sellers;
 
 		} catch (SQLException e) {
 			throw new DbException(e.getMessage());
 		} finally {
 			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
 		}
 	}
 
 	@Override
 	public List<Seller> findByDepartment(Department dep) {
+		Connection conn = null;
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		List<Seller> sellers = new ArrayList<>();
 		try {
-			st = conn.prepareStatement("select seller.*, Department.Name as depName "
-					+ "from seller inner join department "
-					+ "on seller.DepartmentId = department.id "
-					+ "where DepartmentId = ?;");
+			conn = pool.getConnection();
+			st = conn.prepareStatement("SELECT " + SellerRowMapper.COLUMNS
+					+ SellerRowMapper.FROM
+					+ "WHERE seller.DepartmentId = ?");
 			
 			st.setInt(1, dep.getId());
 			
 			rs = st.executeQuery();
-			if ( rs.next()) {
+			SellerRowMapper mapper = new SellerRowMapper(rs);
 			while (rs.next()) {
-				sellers.add(instaciateSeller(rs));
+				sellers.add(mapper.map(rs));
 			}
-
 			return sellers;
-			}
-			else {
-				return null;
-			}
 			
 		}catch (SQLException e) {
 			throw new DbException(e.getMessage());
 		}finally {
+			DB.closeResultSet(rs);
 			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	@Override
+	public List<Seller> findPage(Integer afterId, int limit) {
+		return findPage(new SellerFilter(), SellerSort.DEFAULT, boundary(afterId), limit);
+	}
+
+	@Override
+	public List<Seller> findPageBefore(Integer beforeId, int limit) {
+		return findPageBefore(new SellerFilter(), SellerSort.DEFAULT, boundary(beforeId), limit);
+	}
+
+	@Override
+	public int count() {
+		return count(new SellerFilter());
+	}
+
+	@Override
+	public List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller after, int limit) {
+		return findPage(filter, sort, after, limit, true);
+	}
+
+	@Override
+	public List<Seller> findPageBefore(SellerFilter filter, SellerSort sort, Seller before, int limit) {
+		return findPage(filter, sort, before, limit, false);
+	}
+
+	/*
+	 * Keyset paging on (sort column, Id): the next page starts right after the
+	 * boundary row in sort order, the previous page is read backwards from it
+	 * and reversed. Either way it is one range scan on an index of the sort
+	 * column, however deep the page is.
+	 */
+	private List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller boundary, int limit,
+			boolean forward) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		List<Seller> sellers = new ArrayList<>();
+		try {
+			boolean descending = sort.isDescending() == forward;
+			String op = descending ? "<" : ">";
+			String dir = descending ? " DESC" : "";
+			String col = sort.getColumn().getSql();
+
+			List<Object> params = new ArrayList<>();
+			StringBuilder sql = new StringBuilder("SELECT " + SellerRowMapper.COLUMNS + SellerRowMapper.FROM);
+			appendWhere(sql, filter, params);
+			if (boundary != null) {
+				sql.append(params.isEmpty() ? "WHERE " : "AND ");
+				if (sort.getColumn() == SellerSort.Column.ID) {
+					sql.append("seller.Id ").append(op).append(" ? ");
+				} else {
+					Object value = sort.getColumn().valueOf(boundary);
+					sql.append("(").append(col).append(' ').append(op).append(" ? OR (")
+							.append(col).append(" = ? AND seller.Id ").append(op).append(" ?)) ");
+					params.add(value);
+					params.add(value);
+				}
+				params.add(boundary.getId());
+			}
+			sql.append("ORDER BY ");
+			if (sort.getColumn() != SellerSort.Column.ID) {
+				sql.append(col).append(dir).append(", ");
+			}
+			sql.append("seller.Id").append(dir).append(" LIMIT ?");
+			params.add(limit);
+
+			conn = pool.getConnection();
+			st = conn.prepareStatement(sql.toString());
+			bind(st, params);
+
+			CancellableQuery.register(st);
+			rs = st.executeQuery();
+			SellerRowMapper mapper = new SellerRowMapper(rs);
+			while (rs.next()) {
+				sellers.add(mapper.map(rs));
+			}
+			if (!forward) {
+				Collections.reverse(sellers);
+			}
+			return sellers;
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			CancellableQuery.unregister();
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	private static Seller boundary(Integer id) {
+		if (id == null) {
+			return null;
+		}
+		Seller obj = new Seller();
+		obj.setId(id);
+		return obj;
+	}
+
+	@Override
+	public int count(SellerFilter filter) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			List<Object> params = new ArrayList<>();
+			StringBuilder sql = new StringBuilder("SELECT COUNT(*) " + SellerRowMapper.FROM);
+			appendWhere(sql, filter, params);
+
+			conn = pool.getConnection();
+			st = conn.prepareStatement(sql.toString());
+			bind(st, params);
+
+			CancellableQuery.register(st);
+			rs = st.executeQuery();
+			rs.next();
+			return rs.getInt(1);
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			CancellableQuery.unregister();
 			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
+
+	/*
+	 * Only the criteria that are set become conditions, so each combination
+	 * is its own statement shape (and cached statement). Text criteria are
+	 * prefix LIKEs, which can use an index on Name or Email.
+	 */
+	private static void appendWhere(StringBuilder sql, SellerFilter filter, List<Object> params) {
+		List<String> conditions = new ArrayList<>();
+		if (filter.getNamePrefix() != null) {
+			conditions.add("seller.Name LIKE ?");
+			params.add(likePrefix(filter.getNamePrefix()));
+		}
+		if (filter.getEmailPrefix() != null) {
+			conditions.add("seller.Email LIKE ?");
+			params.add(likePrefix(filter.getEmailPrefix()));
+		}
+		if (filter.getDepartmentId() != null) {
+			conditions.add("seller.DepartmentId = ?");
+			params.add(filter.getDepartmentId());
+		}
+		if (filter.getMinSalary() != null) {
+			conditions.add("seller.BaseSalary >= ?");
+			params.add(filter.getMinSalary());
+		}
+		if (filter.getMaxSalary() != null) {
+			conditions.add("seller.BaseSalary <= ?");
+			params.add(filter.getMaxSalary());
+		}
+		if (!conditions.isEmpty()) {
+			sql.append("WHERE ").append(String.join(" AND ", conditions)).append(' ');
 		}
 	}
 
+	private static String likePrefix(String prefix) {
+		return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+	}
+
+	private static void bind(PreparedStatement st, List<Object> params) throws SQLException {
+		for (int i = 0; i < params.size(); i++) {
+			st.setObject(i + 1, params.get(i));
+		}
+	}
+
+	/*
+	 * Streams every row to the action as it is read, with a forward-only,
+	 * read-only result set; the driver keeps only fetchSize rows in memory
+	 * (MySQL needs useCursorFetch=true for that).
+	 */
+	@Override
+	public void forEach(int fetchSize, Consumer<Seller> action) {
+		Connection conn = null;
+		PreparedStatement st = null;
+		ResultSet rs = null;
+		try {
+			conn = pool.getConnection();
+			conn.setAutoCommit(false);
+			st = conn.prepareStatement("SELECT " + SellerRowMapper.COLUMNS
+					+ SellerRowMapper.FROM
+					+ "ORDER BY seller.Id",
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			st.setFetchSize(fetchSize);
+
+			rs = st.executeQuery();
+			SellerRowMapper mapper = new SellerRowMapper(rs);
+			while (rs.next()) {
+				action.accept(mapper.map(rs));
+			}
+
+		} catch (SQLException e) {
+			throw new DbException(e.getMessage());
+		} finally {
+			DB.closeResultSet(rs);
+			DB.closeStatement(st);
+			pool.releaseConnection(conn);
+		}
+	}
 }
@@ -0,0 +1,269 @@
+package model.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import model.dao.SellerDao;
+import model.dao.SellerFilter;
+import model.dao.SellerSort;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * SellerDao over a {@link MemoryStore}, for running the application and the
+ * benchmarks without a database. Results are new Seller objects, like rows
+ * mapped from a query, and follow the same ordering and filter rules as
+ * SellerDaoJDBC (text compares case-insensitively).
+ */
+public class SellerDaoMemory implements SellerDao {
+
+	private MemoryStore store;
+
+	public SellerDaoMemory(MemoryStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public void insert(Seller obj) {
+		store.insertSellers(Collections.singletonList(obj));
+	}
+
+	@Override
+	public void update(Seller obj) {
+		store.updateSellers(Collections.singletonList(obj));
+	}
+
+	@Override
+	public void insertAll(Collection<Seller> list) {
+		store.insertSellers(list);
+	}
+
+	@Override
+	public void updateAll(Collection<Seller> list) {
+		store.updateSellers(list);
+	}
+
+	@Override
+	public void deleteBy(Seller obj) {
+		store.deleteSeller(obj.getId());
+	}
+
+	@Override
+	public Seller findById(Integer id) {
+		MemoryStore.SellerRow row = store.sellers.get(id);
+		return row == null ? null : store.toSeller(row);
+	}
+
+	@Override
+	public List<Seller> findByIds(int[] ids) {
+		int[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		List<Seller> sellers = new ArrayList<>(sorted.length);
+		for (int i = 0; i < sorted.length; i++) {
+			MemoryStore.SellerRow row = i > 0 && sorted[i] == sorted[i - 1] ? null : store.sellers.get(sorted[i]);
+			if (row != null) {
+				sellers.add(store.toSeller(row));
+			}
+		}
+		return sellers;
+	}
+
+	@Override
+	public List<Seller> findAll() {
+		List<Seller> sellers = new ArrayList<>(store.sellers.size());
+		for (MemoryStore.SellerRow row : store.sellers.values()) {
+			sellers.add(store.toSeller(row));
+		}
+		return sellers;
+	}
+
+	@Override
+	public List<Seller> findByDepartment(Department dep) {
+		List<Seller> sellers = new ArrayList<>();
+		for (Integer id : store.sellerIds(dep.getId())) {
+			MemoryStore.SellerRow row = store.sellers.get(id);
+			if (row != null) {
+				sellers.add(store.toSeller(row));
+			}
+		}
+		return sellers;
+	}
+
+	@Override
+	public List<Seller> findPage(Integer afterId, int limit) {
+		return findPage(new SellerFilter(), SellerSort.DEFAULT, boundary(afterId), limit);
+	}
+
+	@Override
+	public List<Seller> findPageBefore(Integer beforeId, int limit) {
+		return findPageBefore(new SellerFilter(), SellerSort.DEFAULT, boundary(beforeId), limit);
+	}
+
+	@Override
+	public int count() {
+		return store.sellers.size();
+	}
+
+	@Override
+	public List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller after, int limit) {
+		return findPage(filter, sort, after, limit, true);
+	}
+
+	@Override
+	public List<Seller> findPageBefore(SellerFilter filter, SellerSort sort, Seller before, int limit) {
+		return findPage(filter, sort, before, limit, false);
+	}
+
+	/*
+	 * Sorted by Id, the page is read straight off the id index (all sellers
+	 * or one department) starting at the boundary. Any other sort scans the
+	 * candidates once and keeps the limit rows closest to the boundary in a
+	 * bounded heap.
+	 */
+	private List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller boundary, int limit,
+			boolean forward) {
+		NavigableSet<Integer> ids = candidates(filter);
+		List<MemoryStore.SellerRow> rows = new ArrayList<>();
+		if (sort.getColumn() == SellerSort.Column.ID) {
+			boolean ascending = forward != sort.isDescending();
+			if (boundary != null) {
+				ids = ascending ? ids.tailSet(boundary.getId(), false) : ids.headSet(boundary.getId(), false);
+			}
+			Iterator<Integer> it = ascending ? ids.iterator() : ids.descendingIterator();
+			while (it.hasNext() && rows.size() < limit) {
+				MemoryStore.SellerRow row = store.sellers.get(it.next());
+				if (row != null && matches(filter, row)) {
+					rows.add(row);
+				}
+			}
+		} else {
+			Comparator<MemoryStore.SellerRow> order = comparator(sort);
+			if (!forward) {
+				order = order.reversed();
+			}
+			MemoryStore.SellerRow from = boundary == null ? null : toRow(boundary);
+			PriorityQueue<MemoryStore.SellerRow> closest = new PriorityQueue<>(order.reversed());
+			for (Integer id : ids) {
+				MemoryStore.SellerRow row = store.sellers.get(id);
+				if (row == null || !matches(filter, row) || (from != null && order.compare(row, from) <= 0)) {
+					continue;
+				}
+				if (closest.size() < limit) {
+					closest.add(row);
+				} else if (limit > 0 && order.compare(row, closest.peek()) < 0) {
+					closest.poll();
+					closest.add(row);
+				}
+			}
+			rows.addAll(closest);
+			rows.sort(order);
+		}
+		if (!forward) {
+			Collections.reverse(rows);
+		}
+		List<Seller> sellers = new ArrayList<>(rows.size());
+		for (MemoryStore.SellerRow row : rows) {
+			sellers.add(store.toSeller(row));
+		}
+		return sellers;
+	}
+
+	@Override
+	public int count(SellerFilter filter) {
+		NavigableSet<Integer> ids = candidates(filter);
+		if (filter.getNamePrefix() == null && filter.getEmailPrefix() == null && filter.getMinSalary() == null
+				&& filter.getMaxSalary() == null) {
+			return ids.size();
+		}
+		int count = 0;
+		for (Integer id : ids) {
+			MemoryStore.SellerRow row = store.sellers.get(id);
+			if (row != null && matches(filter, row)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void forEach(int fetchSize, Consumer<Seller> action) {
+		for (MemoryStore.SellerRow row : store.sellers.values()) {
+			action.accept(store.toSeller(row));
+		}
+	}
+
+	private NavigableSet<Integer> candidates(SellerFilter filter) {
+		return filter.getDepartmentId() != null ? store.sellerIds(filter.getDepartmentId())
+				: store.sellers.keySet();
+	}
+
+	private static boolean matches(SellerFilter filter, MemoryStore.SellerRow row) {
+		if (filter.getNamePrefix() != null && !startsWithIgnoreCase(row.name, filter.getNamePrefix())) {
+			return false;
+		}
+		if (filter.getEmailPrefix() != null && !startsWithIgnoreCase(row.email, filter.getEmailPrefix())) {
+			return false;
+		}
+		if (filter.getDepartmentId() != null && filter.getDepartmentId() != row.departmentId) {
+			return false;
+		}
+		if (filter.getMinSalary() != null && row.baseSalary < filter.getMinSalary()) {
+			return false;
+		}
+		if (filter.getMaxSalary() != null && row.baseSalary > filter.getMaxSalary()) {
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean startsWithIgnoreCase(String value, String prefix) {
+		return value != null && value.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+	/* (sort column, Id), both in the sort direction */
+	private static Comparator<MemoryStore.SellerRow> comparator(SellerSort sort) {
+		Comparator<MemoryStore.SellerRow> order;
+		switch (sort.getColumn()) {
+		case NAME:
+			order = Comparator.comparing(row -> row.name, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+			break;
+		case EMAIL:
+			order = Comparator.comparing(row -> row.email, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+			break;
+		case BIRTH_DATE:
+			order = Comparator.comparingLong(row -> row.birthDate);
+			break;
+		case BASE_SALARY:
+			order = Comparator.comparingDouble(row -> row.baseSalary);
+			break;
+		default:
+			order = (a, b) -> 0;
+		}
+		order = order.thenComparingInt(row -> row.id);
+		return sort.isDescending() ? order.reversed() : order;
+	}
+
+	private static MemoryStore.SellerRow toRow(Seller obj) {
+		return new MemoryStore.SellerRow(obj.getId(), obj.getName(), obj.getEmail(),
+				obj.getBirthDate() == null ? 0L : obj.getBirthDate().getTime(),
+				obj.getBaseSalary() == null ? 0.0 : obj.getBaseSalary(),
+				obj.getDepartment() == null ? 0 : obj.getDepartment().getId());
+	}
+
+	private static Seller boundary(Integer id) {
+		if (id == null) {
+			return null;
+		}
+		Seller obj = new Seller();
+		obj.setId(id);
+		return obj;
+	}
+}
@@ -0,0 +1,261 @@
+package model.dao.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.dao.SellerDao;
+import model.dao.SellerFilter;
+import model.dao.SellerSort;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Records the latency, failures and rows of every call on another
+ * SellerDao under "dao.seller.<method>" in the {@link MetricsRegistry}.
+ */
+public class SellerDaoMetrics implements SellerDao {
+
+	private SellerDao dao;
+
+	private final OperationMetrics insert = MetricsRegistry.get("dao.seller.insert");
+	private final OperationMetrics update = MetricsRegistry.get("dao.seller.update");
+	private final OperationMetrics insertAll = MetricsRegistry.get("dao.seller.insertAll");
+	private final OperationMetrics updateAll = MetricsRegistry.get("dao.seller.updateAll");
+	private final OperationMetrics deleteBy = MetricsRegistry.get("dao.seller.deleteBy");
+	private final OperationMetrics findById = MetricsRegistry.get("dao.seller.findById");
+	private final OperationMetrics findByIds = MetricsRegistry.get("dao.seller.findByIds");
+	private final OperationMetrics findAll = MetricsRegistry.get("dao.seller.findAll");
+	private final OperationMetrics findByDepartment = MetricsRegistry.get("dao.seller.findByDepartment");
+	private final OperationMetrics findPage = MetricsRegistry.get("dao.seller.findPage");
+	private final OperationMetrics findPageBefore = MetricsRegistry.get("dao.seller.findPageBefore");
+	private final OperationMetrics count = MetricsRegistry.get("dao.seller.count");
+	private final OperationMetrics forEach = MetricsRegistry.get("dao.seller.forEach");
+
+	public SellerDaoMetrics(SellerDao dao) {
+		this.dao = dao;
+	}
+
+	@Override
+	public void insert(Seller obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.insert(obj);
+			insert.addRows(1);
+			success = true;
+		} finally {
+			insert.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void update(Seller obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.update(obj);
+			update.addRows(1);
+			success = true;
+		} finally {
+			update.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void insertAll(Collection<Seller> list) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.insertAll(list);
+			insertAll.addRows(list.size());
+			success = true;
+		} finally {
+			insertAll.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void updateAll(Collection<Seller> list) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.updateAll(list);
+			updateAll.addRows(list.size());
+			success = true;
+		} finally {
+			updateAll.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void deleteBy(Seller obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			dao.deleteBy(obj);
+			deleteBy.addRows(1);
+			success = true;
+		} finally {
+			deleteBy.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public Seller findById(Integer id) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			Seller result = dao.findById(id);
+			findById.addRows(result == null ? 0 : 1);
+			success = true;
+			return result;
+		} finally {
+			findById.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findByIds(int[] ids) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findByIds(ids);
+			findByIds.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findByIds.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findAll() {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findAll();
+			findAll.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findAll.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findByDepartment(Department dep) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findByDepartment(dep);
+			findByDepartment.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findByDepartment.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findPage(Integer afterId, int limit) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findPage(afterId, limit);
+			findPage.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findPage.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findPageBefore(Integer beforeId, int limit) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findPageBefore(beforeId, limit);
+			findPageBefore.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findPageBefore.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public int count() {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			int result = dao.count();
+			success = true;
+			return result;
+		} finally {
+			count.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller after, int limit) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findPage(filter, sort, after, limit);
+			findPage.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findPage.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public List<Seller> findPageBefore(SellerFilter filter, SellerSort sort, Seller before, int limit) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = dao.findPageBefore(filter, sort, before, limit);
+			findPageBefore.addRows(result.size());
+			success = true;
+			return result;
+		} finally {
+			findPageBefore.record(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public int count(SellerFilter filter) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			int result = dao.count(filter);
+			success = true;
+			return result;
+		} finally {
+			count.record(System.nanoTime() - start, success);
+		}
+	}
+
+	/* one counting wrapper per call, not per row */
+	@Override
+	public void forEach(int fetchSize, Consumer<Seller> action) {
+		long start = System.nanoTime();
+		boolean success = false;
+		long[] rows = { 0 };
+		try {
+			dao.forEach(fetchSize, obj -> {
+				rows[0]++;
+				action.accept(obj);
+			});
+			success = true;
+		} finally {
+			forEach.addRows(rows[0]);
+			forEach.record(System.nanoTime() - start, success);
+		}
+	}
+}
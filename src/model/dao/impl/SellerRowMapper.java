@@ -0,0 +1,63 @@
+package model.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Maps rows selected with {@link #COLUMNS}. One mapper is created per result
+ * set; it also acts as the identity map of that query, so sellers of the
+ * same department share one Department instance and the department name is
+ * only read the first time its id shows up.
+ */
+public class SellerRowMapper implements RowMapper<Seller> {
+
+	public static final String COLUMNS = "seller.Id, seller.Name, seller.Email, seller.BirthDate, "
+			+ "seller.BaseSalary, seller.DepartmentId, department.Name AS DepName ";
+
+	public static final String FROM = "FROM seller INNER JOIN department "
+			+ "ON seller.DepartmentId = department.Id ";
+
+	private final int id;
+	private final int name;
+	private final int email;
+	private final int birthDate;
+	private final int baseSalary;
+	private final int departmentId;
+	private final int departmentName;
+
+	private final Map<Integer, Department> deps = new HashMap<>();
+
+	public SellerRowMapper(ResultSet rs) throws SQLException {
+		id = rs.findColumn("Id");
+		name = rs.findColumn("Name");
+		email = rs.findColumn("Email");
+		birthDate = rs.findColumn("BirthDate");
+		baseSalary = rs.findColumn("BaseSalary");
+		departmentId = rs.findColumn("DepartmentId");
+		departmentName = rs.findColumn("DepName");
+	}
+
+	@Override
+	public Seller map(ResultSet rs) throws SQLException {
+		int depId = rs.getInt(departmentId);
+		Department dep = deps.get(depId);
+		if (dep == null) {
+			dep = new Department(depId, rs.getString(departmentName));
+			deps.put(depId, dep);
+		}
+		Timestamp birth = rs.getTimestamp(birthDate);
+		return new Seller(rs.getInt(id),
+				rs.getString(name),
+				rs.getString(email),
+				birth == null ? null : new Date(birth.getTime()),
+				rs.getDouble(baseSalary),
+				dep);
+	}
+}
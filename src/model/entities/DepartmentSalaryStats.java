@@ -0,0 +1,82 @@
+package model.entities;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Salary aggregates of one department, plus its headcount per age band.
+ * The bands are defined by the query that produced the stats (see
+ * ReportService#AGE_BANDS).
+ */
+public class DepartmentSalaryStats implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int departmentId;
+	private final String departmentName;
+	private int headcount;
+	private double total;
+	private double min;
+	private double max;
+	private final int[] ageBandCounts;
+
+	public DepartmentSalaryStats(int departmentId, String departmentName, int ageBands) {
+		this.departmentId = departmentId;
+		this.departmentName = departmentName;
+		this.ageBandCounts = new int[ageBands];
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+
+	/* folds in one (department, age band) group */
+	public void addGroup(int ageBand, int count, double sum, double groupMin, double groupMax) {
+		headcount += count;
+		total += sum;
+		min = Math.min(min, groupMin);
+		max = Math.max(max, groupMax);
+		ageBandCounts[ageBand] += count;
+	}
+
+	public int getDepartmentId() {
+		return departmentId;
+	}
+
+	public String getDepartmentName() {
+		return departmentName;
+	}
+
+	public int getHeadcount() {
+		return headcount;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	public double getAverage() {
+		return headcount == 0 ? 0.0 : total / headcount;
+	}
+
+	public double getMin() {
+		return headcount == 0 ? 0.0 : min;
+	}
+
+	public double getMax() {
+		return headcount == 0 ? 0.0 : max;
+	}
+
+	public int getAgeBandCount(int ageBand) {
+		return ageBandCounts[ageBand];
+	}
+
+	public int getAgeBands() {
+		return ageBandCounts.length;
+	}
+
+	@Override
+	public String toString() {
+		return "DepartmentSalaryStats [departmentId=" + departmentId + ", departmentName=" + departmentName
+				+ ", headcount=" + headcount + ", total=" + total + ", average=" + getAverage() + ", min=" + getMin()
+				+ ", max=" + getMax() + ", ageBandCounts=" + Arrays.toString(ageBandCounts) + "]";
+	}
+}
@@ -1,7 +1,10 @@
 package model.services;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import model.dao.DaoFactory;
 import model.dao.DepartmentDao;
 import model.entities.Department;
@@ -10,20 +13,72 @@ public class DepartmentService {
 
 	private DepartmentDao dao = DaoFactory.createDepartmentDao();
 
+	/* recorded under the same names as the async versions, which time the private bodies */
+	private final OperationMetrics findAllMetrics = MetricsRegistry.get("service.department.findAll");
+	private final OperationMetrics saveOrUpdateMetrics = MetricsRegistry.get("service.department.saveOrUpdate");
+	private final OperationMetrics removeMetrics = MetricsRegistry.get("service.department.remove");
+
 	public List<Department> findAll() {
-		return dao.findAll();
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Department> result = doFindAll();
+			success = true;
+			return result;
+		} finally {
+			findAllMetrics.record(System.nanoTime() - start, success);
+		}
 	}
 
 	public void saveOrUpdate(Department obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			doSaveOrUpdate(obj);
+			success = true;
+		} finally {
+			saveOrUpdateMetrics.record(System.nanoTime() - start, success);
+		}
+	}
+
+	public void remove(Department obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			doRemove(obj);
+			success = true;
+		} finally {
+			removeMetrics.record(System.nanoTime() - start, success);
+		}
+	}
+
+	public CompletableFuture<List<Department>> findAllAsync() {
+		return ServiceExecutor.supplyAsync("service.department.findAll", this::doFindAll);
+	}
+
+	public CompletableFuture<Void> saveOrUpdateAsync(Department obj) {
+		return ServiceExecutor.runAsync("service.department.saveOrUpdate", () -> doSaveOrUpdate(obj));
+	}
+
+	public CompletableFuture<Void> removeAsync(Department obj) {
+		return ServiceExecutor.runAsync("service.department.remove", () -> doRemove(obj));
+	}
+
+	private List<Department> doFindAll() {
+		return dao.findAll();
+	}
+
+	private void doSaveOrUpdate(Department obj) {
 		if (obj.getId() == null) {
 			dao.insert(obj);
 		} else {
 			dao.update(obj);
 		}
+		ReportService.invalidate();
 	}
-	
-	public void remove(Department obj) {
-		Department dep = dao.findById(obj.getId());
-		dao.delete(dep);
+
+	private void doRemove(Department obj) {
+		dao.delete(obj);
+		ReportService.invalidate();
 	}
 }
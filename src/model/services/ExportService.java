@@ -0,0 +1,198 @@
+package model.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+
+import db.DB;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+
+/**
+ * Writes the seller table (joined to department) or the department table to
+ * CSV or JSON Lines. Rows are streamed from the DAO straight into a buffered
+ * writer on a file channel, so memory use does not depend on the row count.
+ * The fetch size comes from "export.fetchSize" in db.properties.
+ */
+public class ExportService {
+
+	public enum Format {
+		CSV, JSON_LINES;
+
+		/** Picks the format from a name such as sellers.csv, sellers.jsonl or sellers.jsonl.gz. */
+		public static Format fromFileName(String fileName) {
+			String name = fileName.toLowerCase(Locale.ROOT);
+			if (name.endsWith(".gz")) {
+				name = name.substring(0, name.length() - 3);
+			}
+			return name.endsWith(".jsonl") || name.endsWith(".json") ? JSON_LINES : CSV;
+		}
+	}
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private SellerDao sellerDao = DaoFactory.createSellerDao();
+
+	private DepartmentDao departmentDao = DaoFactory.createDepartmentDao();
+
+	private int fetchSize = DB.getIntProperty("export.fetchSize", 1000);
+
+	public static boolean isGzip(Path target) {
+		return target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+	}
+
+	public long exportSellers(Path target, Format format, boolean gzip) throws IOException {
+		try (Writer writer = open(target, gzip)) {
+			long[] count = { 0 };
+			if (format == Format.CSV) {
+				writer.write("Id,Name,Email,BirthDate,BaseSalary,DepartmentId,Department\n");
+			}
+			sellerDao.forEach(fetchSize, obj -> {
+				write(writer, format == Format.CSV ? sellerCsv(obj) : sellerJson(obj));
+				count[0]++;
+			});
+			return count[0];
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	public long exportDepartments(Path target, Format format, boolean gzip) throws IOException {
+		try (Writer writer = open(target, gzip)) {
+			long[] count = { 0 };
+			if (format == Format.CSV) {
+				writer.write("Id,Name\n");
+			}
+			departmentDao.forEach(fetchSize, obj -> {
+				write(writer, format == Format.CSV ? departmentCsv(obj) : departmentJson(obj));
+				count[0]++;
+			});
+			return count[0];
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	public CompletableFuture<Long> exportSellersAsync(Path target) {
+		return ServiceExecutor.supplyAsync("service.export.sellers", () -> {
+			try {
+				return exportSellers(target, Format.fromFileName(target.toString()), isGzip(target));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	public CompletableFuture<Long> exportDepartmentsAsync(Path target) {
+		return ServiceExecutor.supplyAsync("service.export.departments", () -> {
+			try {
+				return exportDepartments(target, Format.fromFileName(target.toString()), isGzip(target));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	private static Writer open(Path target, boolean gzip) throws IOException {
+		FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		OutputStream out = Channels.newOutputStream(channel);
+		if (gzip) {
+			out = new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	private static void write(Writer writer, String line) {
+		try {
+			writer.write(line);
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String sellerCsv(Seller obj) {
+		return obj.getId() + "," + Csv.quote(obj.getName()) + "," + Csv.quote(obj.getEmail()) + ","
+				+ Objects.toString(isoDate(obj.getBirthDate()), "") + "," + obj.getBaseSalary() + ","
+				+ obj.getDepartment().getId() + "," + Csv.quote(obj.getDepartment().getName());
+	}
+
+	private static String sellerJson(Seller obj) {
+		return "{\"id\":" + obj.getId()
+				+ ",\"name\":" + jsonString(obj.getName())
+				+ ",\"email\":" + jsonString(obj.getEmail())
+				+ ",\"birthDate\":" + jsonString(isoDate(obj.getBirthDate()))
+				+ ",\"baseSalary\":" + obj.getBaseSalary()
+				+ ",\"department\":{\"id\":" + obj.getDepartment().getId()
+				+ ",\"name\":" + jsonString(obj.getDepartment().getName()) + "}}";
+	}
+
+	private static String departmentCsv(Department obj) {
+		return obj.getId() + "," + Csv.quote(obj.getName());
+	}
+
+	private static String departmentJson(Department obj) {
+		return "{\"id\":" + obj.getId() + ",\"name\":" + jsonString(obj.getName()) + "}";
+	}
+
+	private static String isoDate(Date date) {
+		if (date == null) {
+			return null;
+		}
+		return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString();
+	}
+
+	private static String jsonString(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 2);
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
@@ -0,0 +1,46 @@
+package model.services;
+
+import java.nio.file.Path;
+
+public class ImportResult {
+
+	private final long rowsRead;
+	private final long rowsImported;
+	private final long rowsRejected;
+	private final Path rejectsFile;
+	private final long elapsedMillis;
+
+	public ImportResult(long rowsRead, long rowsImported, long rowsRejected, Path rejectsFile, long elapsedMillis) {
+		this.rowsRead = rowsRead;
+		this.rowsImported = rowsImported;
+		this.rowsRejected = rowsRejected;
+		this.rejectsFile = rejectsFile;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	public long getRowsImported() {
+		return rowsImported;
+	}
+
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	public Path getRejectsFile() {
+		return rejectsFile;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return rowsImported + " sellers imported, " + rowsRejected + " rejected (" + rowsRead + " rows read in "
+				+ elapsedMillis + " ms)";
+	}
+}
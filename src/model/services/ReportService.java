@@ -0,0 +1,70 @@
+package model.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import model.dao.DaoFactory;
+import model.dao.ReportDao;
+import model.entities.DepartmentSalaryStats;
+
+/**
+ * Salary reports, computed by the database and cached until a seller or
+ * department changes (the services that write them call
+ * {@link #invalidate()}). Concurrent requests share the query in flight, so
+ * opening several views at once still scans the table once.
+ */
+public class ReportService {
+
+	/* upper age limits of every band but the last */
+	public static final int[] AGE_BAND_LIMITS = { 25, 35, 45, 55 };
+
+	public static final String[] AGE_BANDS = { "Under 25", "25-34", "35-44", "45-54", "55+" };
+
+	private static CompletableFuture<List<DepartmentSalaryStats>> salaryStats = null;
+
+	private static LocalDate salaryStatsDate = null;
+
+	private ReportDao dao = DaoFactory.createReportDao();
+
+	public static synchronized void invalidate() {
+		salaryStats = null;
+	}
+
+	public List<DepartmentSalaryStats> getSalaryStats() {
+		try {
+			return getSalaryStatsAsync().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/* ages move with the calendar, so a report from an earlier day is stale too */
+	public CompletableFuture<List<DepartmentSalaryStats>> getSalaryStatsAsync() {
+		synchronized (ReportService.class) {
+			LocalDate today = LocalDate.now();
+			if (salaryStats != null && !salaryStats.isCompletedExceptionally() && today.equals(salaryStatsDate)) {
+				return salaryStats;
+			}
+			CompletableFuture<List<DepartmentSalaryStats>> load = ServiceExecutor
+					.supplyAsync("service.report.salaryStats", () -> computeSalaryStats(today));
+			salaryStats = load;
+			salaryStatsDate = today;
+			return load;
+		}
+	}
+
+	private List<DepartmentSalaryStats> computeSalaryStats(LocalDate today) {
+		List<LocalDate> cutoffs = new ArrayList<>();
+		for (int limit : AGE_BAND_LIMITS) {
+			cutoffs.add(today.minusYears(limit));
+		}
+		return Collections.unmodifiableList(dao.salaryStatsByDepartment(cutoffs));
+	}
+}
@@ -0,0 +1,436 @@
+package model.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
+
+import db.DbException;
+import model.dao.DaoFactory;
+import model.dao.DepartmentDao;
+import model.dao.SellerDao;
+import model.entities.Department;
+import model.entities.Seller;
+import model.exceptions.ValidationException;
+
+/**
+ * Streams a seller CSV file into the database.
+ *
+ * The file is read line by line and handed in chunks to a pool of parser
+ * threads, which validate each row with {@link SellerValidator}; valid
+ * sellers go to a single writer thread that inserts them with
+ * {@link SellerDao#insertAll}. The stages are connected by bounded queues,
+ * so a slow database holds the reader back instead of filling the heap.
+ * Rows that fail validation are written, with their errors, to the
+ * rejects file.
+ *
+ * The header names the columns (any order, case-insensitive): Name, Email,
+ * BirthDate (yyyy-MM-dd or dd/MM/yyyy), BaseSalary and Department, the
+ * latter being the department name.
+ */
+public class SellerImportService {
+
+	private static final String[] COLUMNS = { "Name", "Email", "BirthDate", "BaseSalary", "Department" };
+
+	private static final int CHUNK_SIZE = 1000;
+	private static final int WRITE_CHUNK_SIZE = 5000;
+	private static final int QUEUE_CAPACITY = 16;
+
+	private static final DateTimeFormatter BR_DATE = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+			.withResolverStyle(ResolverStyle.STRICT);
+
+	private static final List<RawRow> END_OF_ROWS = new ArrayList<>();
+	private static final List<Seller> END_OF_SELLERS = new ArrayList<>();
+
+	private SellerDao dao = DaoFactory.createSellerDao();
+
+	private DepartmentDao depDao = DaoFactory.createDepartmentDao();
+
+	public CompletableFuture<ImportResult> importCsvAsync(Path file, Path rejectsFile, DoubleConsumer progress) {
+		return ServiceExecutor.supplyAsync("service.import.sellers", () -> {
+			try {
+				return importCsv(file, rejectsFile, progress);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	public ImportResult importCsv(Path file, Path rejectsFile, DoubleConsumer progress) throws IOException {
+		long start = System.currentTimeMillis();
+		long fileSize = Math.max(1, Files.size(file));
+
+		Map<String, Department> departments = new HashMap<>();
+		for (Department dep : depDao.findAll()) {
+			departments.put(departmentKey(dep.getName()), dep);
+		}
+
+		int parsers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		BlockingQueue<List<RawRow>> rowQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		BlockingQueue<List<Seller>> sellerQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		AtomicLong imported = new AtomicLong();
+		long rowsRead = 0;
+
+		ExecutorService workers = Executors.newFixedThreadPool(parsers + 1, r -> {
+			Thread t = new Thread(r, "seller-import");
+			t.setDaemon(true);
+			return t;
+		});
+
+		try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+				RejectsWriter rejects = new RejectsWriter(rejectsFile)) {
+
+			String header = reader.readLine();
+			if (header == null) {
+				return new ImportResult(0, 0, 0, rejectsFile, System.currentTimeMillis() - start);
+			}
+			int[] columns = resolveColumns(header);
+
+			List<Future<?>> tasks = new ArrayList<>();
+			AtomicInteger runningParsers = new AtomicInteger(parsers);
+			for (int i = 0; i < parsers; i++) {
+				tasks.add(workers.submit(() -> runStage(failure, () -> {
+					try {
+						parseRows(rowQueue, sellerQueue, columns, departments, rejects, failure);
+					} finally {
+						if (runningParsers.decrementAndGet() == 0) {
+							put(sellerQueue, END_OF_SELLERS, failure);
+						}
+					}
+				})));
+			}
+			tasks.add(workers.submit(() -> runStage(failure, () -> writeSellers(sellerQueue, imported, failure))));
+
+			try {
+				List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+				long lineNumber = 1;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					lineNumber++;
+					if (line.isBlank()) {
+						continue;
+					}
+					rowsRead++;
+					chunk.add(new RawRow(lineNumber, line));
+					if (chunk.size() == CHUNK_SIZE) {
+						put(rowQueue, chunk, failure);
+						chunk = new ArrayList<>(CHUNK_SIZE);
+						progress.accept(Math.min(1.0, (double) in.getCount() / fileSize));
+					}
+				}
+				if (!chunk.isEmpty()) {
+					put(rowQueue, chunk, failure);
+				}
+				for (int i = 0; i < parsers; i++) {
+					put(rowQueue, END_OF_ROWS, failure);
+				}
+			} catch (PipelineAborted e) {
+				// the failing stage is reported below
+			}
+
+			for (Future<?> task : tasks) {
+				awaitQuietly(task);
+			}
+			rethrow(failure.get());
+
+			progress.accept(1.0);
+			return new ImportResult(rowsRead, imported.get(), rejects.getCount(), rejectsFile,
+					System.currentTimeMillis() - start);
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private void parseRows(BlockingQueue<List<RawRow>> rowQueue, BlockingQueue<List<Seller>> sellerQueue,
+			int[] columns, Map<String, Department> departments, RejectsWriter rejects,
+			AtomicReference<Throwable> failure) throws IOException {
+		while (true) {
+			List<RawRow> rows = take(rowQueue, failure);
+			if (rows == END_OF_ROWS) {
+				return;
+			}
+			List<Seller> valid = new ArrayList<>(rows.size());
+			for (RawRow row : rows) {
+				try {
+					valid.add(parseRow(row, columns, departments));
+				} catch (ValidationException e) {
+					rejects.reject(row, e.getErrors());
+				}
+			}
+			if (!valid.isEmpty()) {
+				put(sellerQueue, valid, failure);
+			}
+		}
+	}
+
+	private void writeSellers(BlockingQueue<List<Seller>> sellerQueue, AtomicLong imported,
+			AtomicReference<Throwable> failure) {
+		List<Seller> pending = new ArrayList<>(WRITE_CHUNK_SIZE);
+		while (true) {
+			List<Seller> sellers = take(sellerQueue, failure);
+			if (sellers == END_OF_SELLERS) {
+				break;
+			}
+			pending.addAll(sellers);
+			if (pending.size() >= WRITE_CHUNK_SIZE) {
+				dao.insertAll(pending);
+				SellerService.getSearchIndex().putAll(pending);
+				ReportService.invalidate();
+				imported.addAndGet(pending.size());
+				pending = new ArrayList<>(WRITE_CHUNK_SIZE);
+			}
+		}
+		if (!pending.isEmpty()) {
+			dao.insertAll(pending);
+			SellerService.getSearchIndex().putAll(pending);
+			ReportService.invalidate();
+			imported.addAndGet(pending.size());
+		}
+	}
+
+	private static Seller parseRow(RawRow row, int[] columns, Map<String, Department> departments) {
+		List<String> fields = Csv.split(row.line);
+		// the header can be wider or reordered, so the row must reach the last column read
+		int width = 0;
+		for (int column : columns) {
+			width = Math.max(width, column + 1);
+		}
+		if (fields.size() < width) {
+			ValidationException e = new ValidationException("Validation Error");
+			e.addError("Row", "Expected " + width + " columns but found " + fields.size());
+			throw e;
+		}
+
+		ValidationException parseErrors = new ValidationException("Validation Error");
+
+		String birthDateText = fields.get(columns[2]).trim();
+		LocalDate birthDate = null;
+		if (!birthDateText.isEmpty()) {
+			birthDate = parseDate(birthDateText);
+			if (birthDate == null) {
+				parseErrors.addError("Date", "Invalid date: " + birthDateText);
+			}
+		}
+
+		String depName = fields.get(columns[4]).trim();
+		Department dep = departments.get(departmentKey(depName));
+		if (dep == null && !depName.isEmpty()) {
+			parseErrors.addError("Department", "Unknown department: " + depName);
+		}
+
+		try {
+			Seller obj = SellerValidator.validate(null, fields.get(columns[0]).trim(), fields.get(columns[1]).trim(),
+					fields.get(columns[3]), birthDate, dep);
+			if (parseErrors.getErrors().size() > 0) {
+				throw parseErrors;
+			}
+			return obj;
+		} catch (ValidationException e) {
+			if (e != parseErrors) {
+				e.getErrors().putAll(parseErrors.getErrors());
+			}
+			throw e;
+		}
+	}
+
+	private static LocalDate parseDate(String text) {
+		try {
+			return LocalDate.parse(text);
+		} catch (DateTimeParseException e) {
+			try {
+				return LocalDate.parse(text, BR_DATE);
+			} catch (DateTimeParseException e2) {
+				return null;
+			}
+		}
+	}
+
+	private static int[] resolveColumns(String header) {
+		List<String> names = Csv.split(header);
+		int[] columns = new int[COLUMNS.length];
+		for (int i = 0; i < COLUMNS.length; i++) {
+			columns[i] = -1;
+			for (int j = 0; j < names.size(); j++) {
+				if (names.get(j).trim().equalsIgnoreCase(COLUMNS[i])) {
+					columns[i] = j;
+				}
+			}
+			if (columns[i] < 0) {
+				throw new IllegalArgumentException("CSV header is missing the " + COLUMNS[i] + " column");
+			}
+		}
+		return columns;
+	}
+
+	private static String departmentKey(String name) {
+		return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static <T> void put(BlockingQueue<T> queue, T item, AtomicReference<Throwable> failure) {
+		try {
+			while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+				if (failure.get() != null) {
+					throw new PipelineAborted();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PipelineAborted();
+		}
+	}
+
+	private static <T> T take(BlockingQueue<T> queue, AtomicReference<Throwable> failure) {
+		try {
+			T item;
+			while ((item = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+				if (failure.get() != null) {
+					throw new PipelineAborted();
+				}
+			}
+			return item;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PipelineAborted();
+		}
+	}
+
+	private interface Stage {
+		void run() throws Exception;
+	}
+
+	private static void runStage(AtomicReference<Throwable> failure, Stage stage) {
+		try {
+			stage.run();
+		} catch (PipelineAborted e) {
+			// another stage failed first
+		} catch (Throwable t) {
+			failure.compareAndSet(null, t);
+		}
+	}
+
+	private static void awaitQuietly(Future<?> task) {
+		try {
+			task.get();
+		} catch (Exception e) {
+			// stage failures are collected through the failure reference
+		}
+	}
+
+	private static void rethrow(Throwable t) throws IOException {
+		if (t == null) {
+			return;
+		}
+		if (t instanceof IOException) {
+			throw (IOException) t;
+		}
+		if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		}
+		throw new DbException(t.getMessage());
+	}
+
+	private static class RawRow {
+		final long lineNumber;
+		final String line;
+
+		RawRow(long lineNumber, String line) {
+			this.lineNumber = lineNumber;
+			this.line = line;
+		}
+	}
+
+	private static class PipelineAborted extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static class RejectsWriter implements AutoCloseable {
+		private final BufferedWriter writer;
+		private long count = 0;
+
+		RejectsWriter(Path file) throws IOException {
+			writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+			writer.write("Line,Errors,Row");
+			writer.newLine();
+		}
+
+		synchronized void reject(RawRow row, Map<String, String> errors) throws IOException {
+			StringBuilder sb = new StringBuilder();
+			for (Map.Entry<String, String> error : errors.entrySet()) {
+				if (sb.length() > 0) {
+					sb.append("; ");
+				}
+				sb.append(error.getKey()).append(": ").append(error.getValue());
+			}
+			writer.write(row.lineNumber + "," + Csv.quote(sb.toString()) + "," + Csv.quote(row.line));
+			writer.newLine();
+			count++;
+		}
+
+		synchronized long getCount() {
+			return count;
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			writer.close();
+		}
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+		private volatile long count = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
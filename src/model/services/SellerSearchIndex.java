@@ -0,0 +1,447 @@
+package model.services;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import model.dao.SellerDao;
+import model.entities.Seller;
+
+/**
+ * In-memory substring index over seller names and emails. Every bigram and
+ * trigram of the lowercased name and email points to a sorted int array of
+ * document numbers, in an open-addressing table keyed by the packed gram; no
+ * text or entity is kept. Each indexed version of a seller is one document:
+ * changing a seller marks its old document dead and appends a new one, so a
+ * change never has to find the old grams, and dead documents are dropped
+ * from the posting lists in one pass once they make up half the table. A
+ * query intersects the posting lists of its grams (starting from the
+ * shortest), so for queries longer than three characters the result is a
+ * candidate list the caller checks against the seller.
+ *
+ * The index is filled with {@link #build(SellerDao, int)}, which streams the
+ * table into a new table without holding the lock and publishes it in one
+ * swap, and then kept current through {@link #put(Seller)} and
+ * {@link #remove(Integer)}. Changes made while the build is running are
+ * replayed on the new table before it is published, so they win over the
+ * rows the build read.
+ */
+public class SellerSearchIndex {
+
+	public static final int MIN_QUERY_LENGTH = 2;
+
+	private static final int[] NO_IDS = new int[0];
+
+	private static final long BIGRAM = 1L << 48;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private GramTable table = new GramTable();
+
+	/* the latest state (null = removed) of ids changed while a build is running; null otherwise */
+	private Map<Integer, Seller> changedDuringBuild = null;
+
+	private volatile boolean ready = false;
+
+	public void build(SellerDao dao, int fetchSize) {
+		lock.writeLock().lock();
+		try {
+			changedDuringBuild = new HashMap<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		GramTable fresh = new GramTable();
+		boolean completed = false;
+		try {
+			dao.forEach(fetchSize, obj -> fresh.add(obj.getId(), obj.getName(), obj.getEmail()));
+			completed = true;
+		} finally {
+			lock.writeLock().lock();
+			try {
+				if (completed) {
+					for (Map.Entry<Integer, Seller> change : changedDuringBuild.entrySet()) {
+						Seller obj = change.getValue();
+						if (obj != null) {
+							fresh.add(obj.getId(), obj.getName(), obj.getEmail());
+						} else {
+							fresh.delete(change.getKey());
+						}
+					}
+					fresh.compact();
+					table = fresh;
+					ready = true;
+				}
+				changedDuringBuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/* ignored until a build has started: the build reads the row from the table */
+	public void put(Seller obj) {
+		lock.writeLock().lock();
+		try {
+			if (changedDuringBuild != null) {
+				changedDuringBuild.put(obj.getId(), obj);
+			}
+			if (ready) {
+				table.add(obj.getId(), obj.getName(), obj.getEmail());
+				table.compactIfSparse();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void putAll(Iterable<Seller> list) {
+		for (Seller obj : list) {
+			put(obj);
+		}
+	}
+
+	public void remove(Integer id) {
+		lock.writeLock().lock();
+		try {
+			if (changedDuringBuild != null) {
+				changedDuringBuild.put(id, null);
+			}
+			if (ready) {
+				table.delete(id);
+				table.compactIfSparse();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids (ascending) of up to limit sellers whose name or email has every
+	 * gram of the query, ignoring case. That is an exact match for queries of
+	 * two or three characters; longer queries can return a few ids whose
+	 * grams are not adjacent, so callers check the candidates. Queries
+	 * shorter than {@link #MIN_QUERY_LENGTH} match nothing.
+	 */
+	public int[] search(String query, int limit) {
+		if (query == null) {
+			return NO_IDS;
+		}
+		String q = query.trim().toLowerCase(Locale.ROOT);
+		if (q.length() < MIN_QUERY_LENGTH || limit <= 0) {
+			return NO_IDS;
+		}
+		lock.readLock().lock();
+		try {
+			Postings[] lists;
+			if (q.length() == 2) {
+				lists = new Postings[] { table.get(bigram(q.charAt(0), q.charAt(1))) };
+			} else {
+				lists = new Postings[q.length() - 2];
+				for (int i = 0; i < lists.length; i++) {
+					lists[i] = table.get(trigram(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2)));
+				}
+			}
+			for (Postings p : lists) {
+				if (p == null || p.size == 0) {
+					return NO_IDS;
+				}
+			}
+			Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+			int[] result = new int[Math.min(limit, lists[0].size)];
+			int found = 0;
+			Postings shortest = lists[0];
+			for (int i = 0; i < shortest.size && found < result.length; i++) {
+				int doc = shortest.docs[i];
+				if (!table.dead.get(doc) && inAll(lists, doc)) {
+					result[found++] = table.sellerIds[doc];
+				}
+			}
+			result = found == result.length ? result : Arrays.copyOf(result, found);
+			Arrays.sort(result);
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** True when the name or email contains the query, ignoring case, as {@link #search} intends. */
+	public static boolean matches(Seller obj, String query) {
+		String q = query.trim().toLowerCase(Locale.ROOT);
+		return (obj.getName() != null && obj.getName().toLowerCase(Locale.ROOT).contains(q))
+				|| (obj.getEmail() != null && obj.getEmail().toLowerCase(Locale.ROOT).contains(q));
+	}
+
+	private static boolean inAll(Postings[] lists, int doc) {
+		for (int i = 1; i < lists.length; i++) {
+			if (!lists[i].contains(doc)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long bigram(char c0, char c1) {
+		return BIGRAM | ((long) c0 << 16) | c1;
+	}
+
+	private static long trigram(char c0, char c1, char c2) {
+		return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+	}
+
+	/*
+	 * Gram -> postings with linear probing over parallel arrays (0 marks a
+	 * free slot: no gram packs to 0 since a trigram of three NULs is never
+	 * indexed). Grams are never removed, only emptied, and a rebuild starts
+	 * from a new table. Documents are numbered in the order they are added,
+	 * so a posting list only ever grows at its end.
+	 */
+	private static class GramTable {
+		long[] keys = new long[1024];
+		Postings[] values = new Postings[1024];
+		int size = 0;
+
+		/* document -> seller id, and the live document of each seller id */
+		int[] sellerIds = new int[1024];
+		int docs = 0;
+		final IdTable docOf = new IdTable();
+		BitSet dead = new BitSet();
+		int deadCount = 0;
+
+		Postings get(long gram) {
+			int mask = keys.length - 1;
+			for (int i = slot(gram, mask);; i = (i + 1) & mask) {
+				if (keys[i] == gram) {
+					return values[i];
+				}
+				if (keys[i] == 0) {
+					return null;
+				}
+			}
+		}
+
+		void add(int id, String name, String email) {
+			delete(id);
+			if (docs == sellerIds.length) {
+				sellerIds = Arrays.copyOf(sellerIds, docs * 2);
+			}
+			int doc = docs++;
+			sellerIds[doc] = id;
+			docOf.put(id, doc);
+			addText(doc, name);
+			addText(doc, email);
+		}
+
+		void delete(int id) {
+			int doc = docOf.get(id);
+			if (doc >= 0) {
+				dead.set(doc);
+				deadCount++;
+				docOf.put(id, -1);
+			}
+		}
+
+		void compactIfSparse() {
+			if (deadCount > 1024 && deadCount * 2 > docs) {
+				compact();
+			}
+		}
+
+		/* drops the dead documents and renumbers the rest, keeping their order */
+		void compact() {
+			int[] renumbered = new int[docs];
+			int live = 0;
+			for (int doc = 0; doc < docs; doc++) {
+				if (dead.get(doc)) {
+					renumbered[doc] = -1;
+				} else {
+					sellerIds[live] = sellerIds[doc];
+					docOf.put(sellerIds[live], live);
+					renumbered[doc] = live++;
+				}
+			}
+			for (Postings p : values) {
+				if (p != null) {
+					p.renumber(renumbered);
+				}
+			}
+			sellerIds = Arrays.copyOf(sellerIds, Math.max(live, 16));
+			docs = live;
+			dead = new BitSet();
+			deadCount = 0;
+		}
+
+		private void addText(int doc, String value) {
+			if (value == null) {
+				return;
+			}
+			String text = value.toLowerCase(Locale.ROOT);
+			for (int i = 0; i + 1 < text.length(); i++) {
+				char c0 = text.charAt(i);
+				char c1 = text.charAt(i + 1);
+				postings(bigram(c0, c1)).add(doc);
+				if (i + 2 < text.length()) {
+					long gram = trigram(c0, c1, text.charAt(i + 2));
+					if (gram != 0) {
+						postings(gram).add(doc);
+					}
+				}
+			}
+		}
+
+		private Postings postings(long gram) {
+			int mask = keys.length - 1;
+			int i = slot(gram, mask);
+			while (keys[i] != 0) {
+				if (keys[i] == gram) {
+					return values[i];
+				}
+				i = (i + 1) & mask;
+			}
+			Postings p = new Postings();
+			keys[i] = gram;
+			values[i] = p;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+			return p;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			Postings[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new Postings[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldKeys[j] != 0) {
+					int i = slot(oldKeys[j], mask);
+					while (keys[i] != 0) {
+						i = (i + 1) & mask;
+					}
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+				}
+			}
+		}
+
+		private static int slot(long gram, int mask) {
+			long h = gram * 0x9E3779B97F4A7C15L;
+			return (int) (h >>> 32) & mask;
+		}
+	}
+
+	/*
+	 * Seller id -> document with linear probing; an id whose seller was
+	 * removed keeps its slot with document -1 until the table is compacted
+	 * or rebuilt, since ids are rarely reused.
+	 */
+	private static class IdTable {
+		private static final int FREE = Integer.MIN_VALUE;
+
+		int[] keys = newKeys(1024);
+		int[] values = new int[1024];
+		int size = 0;
+
+		int get(int id) {
+			int mask = keys.length - 1;
+			for (int i = slot(id, mask);; i = (i + 1) & mask) {
+				if (keys[i] == id) {
+					return values[i];
+				}
+				if (keys[i] == FREE) {
+					return -1;
+				}
+			}
+		}
+
+		void put(int id, int doc) {
+			int mask = keys.length - 1;
+			int i = slot(id, mask);
+			while (keys[i] != FREE && keys[i] != id) {
+				i = (i + 1) & mask;
+			}
+			if (keys[i] == FREE) {
+				keys[i] = id;
+				if (++size * 2 > keys.length) {
+					values[i] = doc;
+					grow();
+					return;
+				}
+			}
+			values[i] = doc;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = newKeys(oldKeys.length * 2);
+			values = new int[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldKeys[j] != FREE) {
+					int i = slot(oldKeys[j], mask);
+					while (keys[i] != FREE) {
+						i = (i + 1) & mask;
+					}
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+				}
+			}
+		}
+
+		private static int[] newKeys(int length) {
+			int[] keys = new int[length];
+			Arrays.fill(keys, FREE);
+			return keys;
+		}
+
+		private static int slot(int id, int mask) {
+			int h = id * 0x9E3779B9;
+			return (h ^ (h >>> 16)) & mask;
+		}
+	}
+
+	/* sorted, duplicate-free document numbers */
+	private static class Postings {
+		int[] docs = new int[4];
+		int size = 0;
+
+		/* documents are added in increasing order, a gram repeated in one text comes back to back */
+		void add(int doc) {
+			if (size > 0 && docs[size - 1] == doc) {
+				return;
+			}
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, Math.max(4, size + (size >> 1)));
+			}
+			docs[size++] = doc;
+		}
+
+		boolean contains(int doc) {
+			return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+		}
+
+		/* renumbered keeps the order of the live documents, so the list stays sorted */
+		void renumber(int[] renumbered) {
+			int live = 0;
+			for (int i = 0; i < size; i++) {
+				int doc = renumbered[docs[i]];
+				if (doc >= 0) {
+					docs[live++] = doc;
+				}
+			}
+			size = live;
+			if (docs.length > size) {
+				docs = Arrays.copyOf(docs, size);
+			}
+		}
+	}
+}
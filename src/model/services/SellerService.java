@@ -1,28 +1,233 @@
 package model.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
+import db.CancellableQuery;
+import db.DB;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import model.dao.DaoFactory;
 import model.dao.SellerDao;
+import model.dao.SellerFilter;
+import model.dao.SellerSort;
 import model.entities.Seller;
 
 public class SellerService {
 
+	private static final SellerSearchIndex searchIndex = new SellerSearchIndex();
+
+	private static CompletableFuture<Void> searchIndexBuild = null;
+
 	private SellerDao dao = DaoFactory.createSellerDao();
 
+	public static SellerSearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/* starts the index build on first use; a failed build is retried on the next call */
+	public static synchronized CompletableFuture<Void> buildSearchIndexAsync() {
+		if (searchIndexBuild == null || searchIndexBuild.isCompletedExceptionally()) {
+			searchIndexBuild = ServiceExecutor.runAsync("service.seller.buildSearchIndex",
+					() -> searchIndex.build(DaoFactory.createSellerDao(), DB.getIntProperty("export.fetchSize", 1000)));
+		}
+		return searchIndexBuild;
+	}
+
+	/*
+	 * The blocking calls record under the same "service.seller.<method>" names
+	 * as their async versions, which time the private bodies themselves (from
+	 * submission, so queueing is included) and must not count them twice.
+	 */
+	private final OperationMetrics findAllMetrics = MetricsRegistry.get("service.seller.findAll");
+	private final OperationMetrics saveOrUpdateMetrics = MetricsRegistry.get("service.seller.saveOrUpdate");
+	private final OperationMetrics saveOrUpdateAllMetrics = MetricsRegistry.get("service.seller.saveOrUpdateAll");
+	private final OperationMetrics removeMetrics = MetricsRegistry.get("service.seller.remove");
+
 	public List<Seller> findAll() {
-		return dao.findAll();
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> result = doFindAll();
+			success = true;
+			return result;
+		} finally {
+			findAllMetrics.record(System.nanoTime() - start, success);
+		}
 	}
 
 	public void saveOrUpdate(Seller obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			doSaveOrUpdate(obj);
+			success = true;
+		} finally {
+			saveOrUpdateMetrics.record(System.nanoTime() - start, success);
+		}
+	}
+
+	public void saveOrUpdateAll(Collection<Seller> list) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			List<Seller> inserts = new ArrayList<>();
+			List<Seller> updates = new ArrayList<>();
+			for (Seller obj : list) {
+				if (obj.getId() == null) {
+					inserts.add(obj);
+				} else {
+					updates.add(obj);
+				}
+			}
+			if (!inserts.isEmpty()) {
+				dao.insertAll(inserts);
+			}
+			if (!updates.isEmpty()) {
+				dao.updateAll(updates);
+			}
+			searchIndex.putAll(list);
+			ReportService.invalidate();
+			saveOrUpdateAllMetrics.addRows(list.size());
+			success = true;
+		} finally {
+			saveOrUpdateAllMetrics.record(System.nanoTime() - start, success);
+		}
+	}
+
+	public void remove(Seller obj) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			doRemove(obj);
+			success = true;
+		} finally {
+			removeMetrics.record(System.nanoTime() - start, success);
+		}
+	}
+
+	public List<Seller> findPage(Integer afterId, int limit) {
+		return dao.findPage(afterId, limit);
+	}
+
+	public List<Seller> findPageBefore(Integer beforeId, int limit) {
+		return dao.findPageBefore(beforeId, limit);
+	}
+
+	public int count() {
+		return dao.count();
+	}
+
+	public List<Seller> findPage(SellerFilter filter, SellerSort sort, Seller after, int limit) {
+		return dao.findPage(filter, sort, after, limit);
+	}
+
+	public List<Seller> findPageBefore(SellerFilter filter, SellerSort sort, Seller before, int limit) {
+		return dao.findPageBefore(filter, sort, before, limit);
+	}
+
+	public int count(SellerFilter filter) {
+		return dao.count(filter);
+	}
+
+	/*
+	 * Candidates come from the in-memory index once it is built; they are
+	 * read in one query and checked, since the index keeps no text.
+	 */
+	public CompletableFuture<List<Seller>> searchAsync(String text, int limit) {
+		return buildSearchIndexAsync().thenCompose(v -> ServiceExecutor.supplyAsync("service.seller.search", () -> {
+			List<Seller> matches = new ArrayList<>();
+			int[] ids = searchIndex.search(text, limit * 2);
+			if (ids.length == 0) {
+				return matches;
+			}
+			for (Seller obj : dao.findByIds(ids)) {
+				if (SellerSearchIndex.matches(obj, text)) {
+					matches.add(obj);
+					if (matches.size() == limit) {
+						break;
+					}
+				}
+			}
+			return matches;
+		}));
+	}
+
+	public CompletableFuture<List<Seller>> findAllAsync() {
+		return ServiceExecutor.supplyAsync("service.seller.findAll", this::doFindAll);
+	}
+
+	public CompletableFuture<Void> saveOrUpdateAsync(Seller obj) {
+		return ServiceExecutor.runAsync("service.seller.saveOrUpdate", () -> doSaveOrUpdate(obj));
+	}
+
+	public CompletableFuture<Void> removeAsync(Seller obj) {
+		return ServiceExecutor.runAsync("service.seller.remove", () -> doRemove(obj));
+	}
+
+	public CompletableFuture<List<Seller>> findPageAsync(Integer afterId, int limit) {
+		return ServiceExecutor.supplyAsync("service.seller.findPage", () -> findPage(afterId, limit));
+	}
+
+	public CompletableFuture<List<Seller>> findPageBeforeAsync(Integer beforeId, int limit) {
+		return ServiceExecutor.supplyAsync("service.seller.findPageBefore",
+				() -> findPageBefore(beforeId, limit));
+	}
+
+	public CompletableFuture<Integer> countAsync() {
+		return ServiceExecutor.supplyAsync("service.seller.count", this::count);
+	}
+
+	/*
+	 * The filtered queries back the search bar and column sorting: cancelling the returned future
+	 * cancels the statement if it is still running on the database.
+	 */
+	public CompletableFuture<List<Seller>> findPageAsync(SellerFilter filter, SellerSort sort, Seller after,
+			int limit) {
+		return cancellableAsync("service.seller.findPage", () -> findPage(filter, sort, after, limit));
+	}
+
+	public CompletableFuture<List<Seller>> findPageBeforeAsync(SellerFilter filter, SellerSort sort, Seller before,
+			int limit) {
+		return cancellableAsync("service.seller.findPageBefore",
+				() -> findPageBefore(filter, sort, before, limit));
+	}
+
+	public CompletableFuture<Integer> countAsync(SellerFilter filter) {
+		return cancellableAsync("service.seller.count", () -> count(filter));
+	}
+
+	private List<Seller> doFindAll() {
+		return dao.findAll();
+	}
+
+	private void doSaveOrUpdate(Seller obj) {
 		if (obj.getId() == null) {
 			dao.insert(obj);
 		} else {
 			dao.update(obj);
 		}
+		searchIndex.put(obj);
+		ReportService.invalidate();
 	}
 
-	public void remove(Seller obj) {
+	private void doRemove(Seller obj) {
 		dao.deleteBy(obj);
+		searchIndex.remove(obj.getId());
+		ReportService.invalidate();
+	}
+
+	private static <T> CompletableFuture<T> cancellableAsync(String name, Supplier<T> work) {
+		CancellableQuery query = new CancellableQuery();
+		CompletableFuture<T> future = ServiceExecutor.supplyAsync(name, () -> query.run(work));
+		future.whenComplete((result, error) -> {
+			if (future.isCancelled()) {
+				query.cancel();
+			}
+		});
+		return future;
 	}
 }
@@ -0,0 +1,62 @@
+package model.services;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import model.entities.Department;
+import model.entities.Seller;
+import model.exceptions.ValidationException;
+
+/**
+ * Field rules for a seller, shared by the seller form and the CSV import.
+ * Errors are keyed by field name ("Name", "Email", "Salary", "Date",
+ * "Department") so the form can show them next to each field.
+ */
+public class SellerValidator {
+
+	public static Seller validate(Integer id, String name, String email, String salary, LocalDate birthDate,
+			Department department) {
+		Seller obj = new Seller();
+		ValidationException exception = new ValidationException("Validation Error");
+
+		obj.setId(id);
+
+		if (name == null || name.trim().equals("")) {
+			exception.addError("Name", "Name can't be empity");
+		}
+		obj.setName(name);
+
+		if (email == null || email.trim().equals("")) {
+			exception.addError("Email", "Email can't be empity");
+		}
+		obj.setEmail(email);
+
+		if (salary == null || salary.trim().equals("")) {
+			exception.addError("Salary", "Salary can't be empity");
+		} else {
+			try {
+				obj.setBaseSalary(Double.parseDouble(salary.trim()));
+			} catch (NumberFormatException e) {
+				exception.addError("Salary", "Salary must be a number");
+			}
+		}
+
+		if (birthDate == null) {
+			exception.addError("Date", "Date can't be empity");
+		} else {
+			obj.setBirthDate(Date.from(birthDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+		}
+
+		if (department == null) {
+			exception.addError("Department", "Department can't be empity");
+		} else {
+			obj.setDepartment(department);
+		}
+
+		if (exception.getErrors().size() > 0) {
+			throw exception;
+		}
+		return obj;
+	}
+}
@@ -0,0 +1,77 @@
+package model.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import db.DB;
+import db.DbException;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import model.dao.DaoFactory;
+
+/**
+ * Shared executor for the asynchronous service methods, so JDBC work never
+ * runs on the JavaFX application thread. The number of workers comes from
+ * "service.threads" in db.properties; 0 (the default) means the connection
+ * pool size, or the processor count when the DAOs are in memory.
+ */
+public class ServiceExecutor {
+
+	private static final OperationMetrics queueWait = MetricsRegistry.get("service.queueWait");
+
+	private static ExecutorService executor = null;
+
+	/*
+	 * Runs work on the executor and records it under the given metrics name,
+	 * from submission to completion; the time spent queued for a worker is
+	 * also recorded as "service.queueWait".
+	 */
+	public static <T> CompletableFuture<T> supplyAsync(String name, Supplier<T> work) {
+		OperationMetrics metrics = MetricsRegistry.get(name);
+		long start = System.nanoTime();
+		CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+			queueWait.record(System.nanoTime() - start, true);
+			return work.get();
+		}, getExecutor());
+		future.whenComplete((result, error) -> metrics.record(System.nanoTime() - start, error == null));
+		return future;
+	}
+
+	public static CompletableFuture<Void> runAsync(String name, Runnable work) {
+		return supplyAsync(name, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	public static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = DB.getIntProperty("service.threads", 0);
+			if (threads < 0) {
+				throw new DbException("Invalid value for service.threads: " + threads);
+			}
+			if (threads == 0) {
+				threads = DaoFactory.isInMemory() ? Runtime.getRuntime().availableProcessors()
+						: DB.getPool().getMaxSize();
+			}
+
+			AtomicInteger count = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "service-worker-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+
+	public static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+}